@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import com.ray3k.caboodlejump.Core;
+import com.ray3k.caboodlejump.Entity;
+import com.ray3k.caboodlejump.EntityManager;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
+import com.ray3k.caboodlejump.headless.HeadlessSimulation;
+import com.ray3k.caboodlejump.states.GameState;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Boots a single headless {@link Core} per benchmark JVM. The headless backend
+ * is left idle so benchmarks can drive the game from their own thread.
+ */
+public class BenchmarkEnvironment {
+    private static HeadlessSimulation simulation;
+    
+    public static synchronized HeadlessSimulation getSimulation() {
+        if (simulation == null) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            simulation = new HeadlessSimulation() {
+                @Override
+                public void create() {
+                    super.create();
+                    latch.countDown();
+                }
+            };
+            simulation.setTicksPerFrame(0);
+            
+            HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+            config.renderInterval = 1.0f;
+            new HeadlessApplication(simulation, config);
+            
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return simulation;
+    }
+    
+    public static Core getCore() {
+        return getSimulation().getCore();
+    }
+    
+    /**
+     * Gives the headless backend a GL20 whose calls do nothing and return
+     * zero, so textures and a SpriteBatch can be created and flushed. Nothing
+     * is drawn, but the batch still counts its render calls.
+     */
+    public static synchronized void installStubGL() {
+        getSimulation();
+        if (Gdx.gl20 != null) {
+            return;
+        }
+        
+        GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] {GL20.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                Class<?> type = method.getReturnType();
+                if (method.getDeclaringClass() == Object.class) {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    } else if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    return "StubGL20";
+                } else if (type == int.class) {
+                    return 0;
+                } else if (type == float.class) {
+                    return 0.0f;
+                } else if (type == boolean.class) {
+                    return false;
+                } else if (type == String.class) {
+                    return "";
+                }
+                return null;
+            }
+        });
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+    }
+    
+    /**
+     * Starts a fresh game and returns its state.
+     */
+    public static GameState startGame() {
+        Core core = getCore();
+        GameState gameState = (GameState) core.getStateManager().getState("game");
+        gameState.setSelectedCharacter(getSimulation().getCharacter());
+        core.getStateManager().loadState("game");
+        return gameState;
+    }
+    
+    /**
+     * Entity with no behaviour of its own, used to measure the cost of the
+     * {@link EntityManager} itself.
+     */
+    public static class EmptyEntity extends Entity {
+        public EmptyEntity(EntityManager manager) {
+            super(manager, null);
+        }
+
+        @Override
+        public void create() {
+        }
+
+        @Override
+        public void act(float delta) {
+        }
+
+        @Override
+        public void act_end(float delta) {
+        }
+
+        @Override
+        public void draw(RenderCommandBuffer buffer, float delta) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public void collision(Entity other) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.ray3k.caboodlejump.BotPlayer;
+import com.ray3k.caboodlejump.Core;
+import com.ray3k.caboodlejump.headless.HeadlessSimulation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole ticks of games played by a {@link BotPlayer}, including the platforms
+ * spawned and recycled as it climbs and the restarts when it falls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotSessionBenchmark {
+    private static final int TICK_BATCH = 100;
+    @Param({"EASY", "NORMAL", "EXPERT"})
+    public String skill;
+    private HeadlessSimulation simulation;
+    
+    @Setup
+    public void setup() {
+        simulation = BenchmarkEnvironment.getSimulation();
+        Core core = simulation.getCore();
+        core.setSeed(0L);
+        core.setBot(new BotPlayer(BotPlayer.Skill.valueOf(skill)));
+    }
+    
+    @TearDown
+    public void tearDown() {
+        Core core = simulation.getCore();
+        core.setBot(null);
+        core.setPlayerInput(simulation.getInput());
+        core.setSeed(null);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(TICK_BATCH)
+    public void tick() {
+        for (int i = 0; i < TICK_BATCH; i++) {
+            simulation.step();
+        }
+    }
+}
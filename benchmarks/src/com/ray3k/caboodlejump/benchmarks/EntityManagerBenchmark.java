@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.ray3k.caboodlejump.Entity;
+import com.ray3k.caboodlejump.EntityManager;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
+import com.ray3k.caboodlejump.benchmarks.BenchmarkEnvironment.EmptyEntity;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Integration, collision dispatch and depth sorting in {@link EntityManager}.
+ * Half of the entities take part in collisions. Runs with and without a
+ * {@link com.ray3k.caboodlejump.MotionStore} and with serial and fork/join
+ * updates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityManagerBenchmark {
+    private static final float WORLD_SIZE = 4000.0f;
+    @Param({"10", "100", "1000", "10000"})
+    public int entityCount;
+    @Param({"false", "true"})
+    public boolean motionStore;
+    @Param({"false", "true"})
+    public boolean parallel;
+    private EntityManager entityManager;
+    private RenderCommandBuffer renderCommandBuffer;
+    private ForkJoinPool forkJoinPool;
+    
+    @Setup
+    public void setup() {
+        MathUtils.random.setSeed(0);
+        entityManager = new EntityManager(motionStore);
+        renderCommandBuffer = new RenderCommandBuffer();
+        if (parallel) {
+            forkJoinPool = new ForkJoinPool();
+            entityManager.setForkJoinPool(forkJoinPool);
+        }
+        for (int i = 0; i < entityCount; i++) {
+            Entity entity = new EmptyEntity(entityManager);
+            entity.setPosition(MathUtils.random(WORLD_SIZE), MathUtils.random(WORLD_SIZE));
+            entity.setMotion(MathUtils.random(10.0f), MathUtils.random(360.0f));
+            entity.setDepth(MathUtils.random(-100, 100));
+            entity.getCollisionBox().setSize(32.0f, 32.0f);
+            entity.setCheckingCollisions(i % 2 == 0);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+    }
+    
+    @Benchmark
+    public void act() {
+        entityManager.act(.01f);
+    }
+    
+    @Benchmark
+    public void draw() {
+        entityManager.draw(renderCommandBuffer, 1.0f);
+        renderCommandBuffer.clear();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.ray3k.caboodlejump.entities.PlatformEntity;
+import com.ray3k.caboodlejump.entities.PlayerEntity;
+import com.ray3k.caboodlejump.states.GameState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Platform spawning, directly and from generated chunks, and the player's
+ * landing check inside a running {@link GameState}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+    private static final int SPAWN_BATCH = 100;
+    @Param({"10", "100", "1000"})
+    public int platformCount;
+    private GameState gameState;
+    private PlayerEntity player;
+    private PlatformEntity[] spawned;
+    
+    @Setup
+    public void setup() {
+        MathUtils.random.setSeed(0);
+        gameState = BenchmarkEnvironment.startGame();
+        player = gameState.getPlayerEntity();
+        
+        float width = gameState.getCore().getWidth();
+        float height = gameState.getCore().getHeight();
+        for (int i = 0; i < platformCount; i++) {
+            gameState.spawnPlatform(MathUtils.random(70.0f, width - 140.0f), MathUtils.random(height), MathUtils.random(0, 2), MathUtils.randomBoolean());
+        }
+        gameState.getEntityManager().act(.01f);
+        
+        spawned = new PlatformEntity[SPAWN_BATCH];
+    }
+    
+    @Benchmark
+    public PlatformEntity landingCheck() {
+        return player.findLandingPlatform();
+    }
+    
+    /**
+     * Spawns a batch of platforms and recycles them through the pool again, so
+     * the measurement reflects steady state play.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SPAWN_BATCH)
+    public void spawnPlatform() {
+        for (int i = 0; i < SPAWN_BATCH; i++) {
+            spawned[i] = gameState.spawnPlatform(400.0f, -1000.0f, i % 3, false);
+        }
+        for (int i = 0; i < SPAWN_BATCH; i++) {
+            spawned[i].dispose();
+        }
+        gameState.getEntityManager().act(0.0f);
+    }
+    
+    /**
+     * Spawns a batch of rows from the background chunk generator, including
+     * taking new chunks as they run out.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SPAWN_BATCH)
+    public void spawnNextPlatform() {
+        for (int i = 0; i < SPAWN_BATCH; i++) {
+            spawned[i] = gameState.spawnNextPlatform();
+        }
+        for (int i = 0; i < SPAWN_BATCH; i++) {
+            spawned[i].dispose();
+        }
+        gameState.getEntityManager().act(0.0f);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.ray3k.caboodlejump.DifficultyHeatmap;
+import com.ray3k.caboodlejump.JumpSolver;
+import com.ray3k.caboodlejump.states.GameState;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jump reachability for a batch of candidate positions, and the difficulty of
+ * the whole stage settings space.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JumpSolverBenchmark {
+    private static final int CANDIDATE_COUNT = 1024;
+    private JumpSolver solver;
+    private float[] dx;
+    private float[] dy;
+    private float[] margins;
+    private DifficultyHeatmap heatmap;
+    
+    @Setup
+    public void setup() {
+        solver = new JumpSolver(1000.0f, 1000.0f);
+        dx = new float[CANDIDATE_COUNT];
+        dy = new float[CANDIDATE_COUNT];
+        margins = new float[CANDIDATE_COUNT];
+        Random random = new Random(0);
+        for (int i = 0; i < CANDIDATE_COUNT; i++) {
+            dx[i] = random.nextFloat() * 1200.0f - 600.0f;
+            dy[i] = random.nextFloat() * 800.0f - 200.0f;
+        }
+        heatmap = DifficultyHeatmap.createStageSettingsMap(GameState.getPlatformRange(800.0f), 64);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATE_COUNT)
+    public float[] margins() {
+        solver.getMargins(dx, dy, margins, CANDIDATE_COUNT);
+        return margins;
+    }
+    
+    /**
+     * 64 samples of each setting, 262144 cells in all.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DifficultyHeatmap heatmap() {
+        heatmap.compute();
+        return heatmap;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.FloatArray;
+import com.esotericsoftware.spine.AnimationState;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.SkeletonBounds;
+import com.esotericsoftware.spine.SkeletonData;
+import com.ray3k.caboodlejump.BakedAnimation;
+import com.ray3k.caboodlejump.Core;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The per tick Spine work a platform would do, compared with playing its baked
+ * animation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlatformAnimationBenchmark {
+    private static final String[] SKINS = {"platform", "moving", "falling"};
+    @Param({"10", "100", "1000"})
+    public int platformCount;
+    private Skeleton[] skeletons;
+    private AnimationState[] animationStates;
+    private SkeletonBounds[] skeletonBounds;
+    private BakedAnimation[] bakedAnimations;
+    private float[] bakedTimes;
+    private FloatArray polygon;
+    private Rectangle boundingBox;
+    
+    @Setup
+    public void setup() {
+        MathUtils.random.setSeed(0);
+        Core core = BenchmarkEnvironment.getCore();
+        SkeletonData skeletonData = core.getAssetManager().get(Core.DATA_PATH + "/spine/platform.json", SkeletonData.class);
+        
+        skeletons = new Skeleton[platformCount];
+        animationStates = new AnimationState[platformCount];
+        skeletonBounds = new SkeletonBounds[platformCount];
+        bakedAnimations = new BakedAnimation[platformCount];
+        bakedTimes = new float[platformCount];
+        polygon = new FloatArray();
+        boundingBox = new Rectangle();
+        for (int i = 0; i < platformCount; i++) {
+            skeletons[i] = new Skeleton(skeletonData);
+            skeletons[i].setSkin(SKINS[i % SKINS.length]);
+            skeletons[i].setPosition(MathUtils.random(800.0f), MathUtils.random(800.0f));
+            animationStates[i] = new AnimationState(core.getAnimationStateData(skeletonData));
+            animationStates[i].setAnimation(0, "animation", true);
+            skeletonBounds[i] = new SkeletonBounds();
+            bakedAnimations[i] = core.getBakedAnimation(SKINS[i % SKINS.length]);
+        }
+    }
+    
+    @Benchmark
+    public void updateAndApply() {
+        for (int i = 0; i < platformCount; i++) {
+            animationStates[i].update(.01f);
+            animationStates[i].apply(skeletons[i]);
+        }
+    }
+    
+    @Benchmark
+    public void updateWorldTransform() {
+        for (int i = 0; i < platformCount; i++) {
+            skeletons[i].updateWorldTransform();
+        }
+    }
+    
+    @Benchmark
+    public void fullTick() {
+        for (int i = 0; i < platformCount; i++) {
+            animationStates[i].update(.01f);
+            skeletons[i].updateWorldTransform();
+            animationStates[i].apply(skeletons[i]);
+            skeletonBounds[i].update(skeletons[i], true);
+        }
+    }
+    
+    @Benchmark
+    public void bakedTick() {
+        for (int i = 0; i < platformCount; i++) {
+            BakedAnimation animation = bakedAnimations[i];
+            bakedTimes[i] = (bakedTimes[i] + .01f) % animation.getDuration();
+            int frame = animation.getFrame(bakedTimes[i]);
+            animation.getPolygon(frame, 0, skeletons[i].getX(), skeletons[i].getY(), polygon);
+            animation.getBoundingBox(frame, skeletons[i].getX(), skeletons[i].getY(), boundingBox);
+        }
+    }
+}
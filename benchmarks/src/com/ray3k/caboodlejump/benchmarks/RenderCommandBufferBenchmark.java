@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.caboodlejump.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.esotericsoftware.spine.BlendMode;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queues and submits a frame of quads scattered over a few depths, drawn from
+ * three textures with one in ten additive, in depth order as
+ * {@link com.ray3k.caboodlejump.EntityManager} adds them. Runs with grouping
+ * off, where each depth draws in the order added, and on. Besides the time
+ * per frame it reports the render calls, texture switches and blend switches
+ * of every frame in the iteration as totals, next to the number of frames.
+ * Runs against a stub GL, so only the CPU side is timed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderCommandBufferBenchmark {
+    private static final int DEPTHS = 4;
+    private static final float WIDTH = 800.0f;
+    private static final float HEIGHT_PER_COMMAND = 2.0f;
+    @Param({"100", "1000", "10000"})
+    public int commandCount;
+    @Param({"false", "true"})
+    public boolean grouping;
+    private Texture[] textures;
+    private ShaderProgram shader;
+    private SpriteBatch batch;
+    private RenderCommandBuffer renderCommandBuffer;
+    private float[] x;
+    private float[] y;
+    private int[] depths;
+    private int[] textureIndices;
+    private boolean[] additive;
+    
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counts {
+        public long frames;
+        public long renderCalls;
+        public long textureSwitches;
+        public long blendSwitches;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            frames = 0;
+            renderCalls = 0;
+            textureSwitches = 0;
+            blendSwitches = 0;
+        }
+    }
+    
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.installStubGL();
+        MathUtils.random.setSeed(0);
+        textures = new Texture[3];
+        for (int i = 0; i < textures.length; i++) {
+            Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+            textures[i] = new Texture(pixmap);
+            pixmap.dispose();
+        }
+        shader = new ShaderProgram("void main() {}", "void main() {}");
+        batch = new SpriteBatch(1000, shader);
+        renderCommandBuffer = new RenderCommandBuffer();
+        renderCommandBuffer.setGrouping(grouping);
+        
+        x = new float[commandCount];
+        y = new float[commandCount];
+        depths = new int[commandCount];
+        textureIndices = new int[commandCount];
+        additive = new boolean[commandCount];
+        int index = 0;
+        for (int depth = DEPTHS - 1; depth >= 0; depth--) {
+            for (int i = 0; i < commandCount / DEPTHS; i++) {
+                x[index] = MathUtils.random(WIDTH);
+                y[index] = MathUtils.random(commandCount * HEIGHT_PER_COMMAND);
+                depths[index] = depth;
+                textureIndices[index] = MathUtils.random(textures.length - 1);
+                additive[index] = MathUtils.random(9) == 0;
+                index++;
+            }
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        batch.dispose();
+        shader.dispose();
+        for (int i = 0; i < textures.length; i++) {
+            textures[i].dispose();
+        }
+    }
+    
+    @Benchmark
+    public void submit(Counts counts) {
+        RenderCommandBuffer buffer = renderCommandBuffer;
+        for (int i = 0; i < commandCount; i++) {
+            buffer.setDepth(depths[i]);
+            buffer.setBlendMode(additive[i] ? BlendMode.additive : BlendMode.normal);
+            buffer.draw(textures[textureIndices[i]], x[i], y[i], 64.0f, 16.0f, 0.0f, 0.0f, 1.0f, 1.0f);
+        }
+        batch.begin();
+        buffer.submit(batch);
+        batch.end();
+        
+        counts.frames++;
+        counts.renderCalls += buffer.getRenderCalls();
+        counts.textureSwitches += buffer.getTextureSwitches();
+        counts.blendSwitches += buffer.getBlendSwitches();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.esotericsoftware.spine.SkeletonData;
+import java.util.Comparator;
+
+/**
+ * Groups of assets read from a JSON manifest. Each group has a name, a
+ * priority and a list of assets with a path relative to the data folder, a
+ * type and, for skeletons, the atlas they use. Assets marked headless are the
+ * only ones loaded by a headless {@link Core}.
+ */
+public class AssetManifest {
+    private static final ObjectMap<String, Class> TYPES = new ObjectMap<String, Class>();
+    private final ObjectMap<String, Group> groups;
+    
+    static {
+        TYPES.put("skeleton", SkeletonData.class);
+        TYPES.put("skin", Skin.class);
+        TYPES.put("pixmap", Pixmap.class);
+        TYPES.put("texture", Texture.class);
+        TYPES.put("atlas", TextureAtlas.class);
+        TYPES.put("sound", Sound.class);
+    }
+
+    public AssetManifest(FileHandle fileHandle) {
+        groups = new ObjectMap<String, Group>();
+        JsonValue root = new JsonReader().parse(fileHandle);
+        for (JsonValue groupValue : root.get("groups")) {
+            Group group = new Group(groupValue.getString("name"), groupValue.getInt("priority", 0));
+            for (JsonValue assetValue : groupValue.get("assets")) {
+                String type = assetValue.getString("type");
+                if (!TYPES.containsKey(type)) {
+                    throw new GdxRuntimeException("Unknown asset type \"" + type + "\" in " + fileHandle.path());
+                }
+                group.assets.add(new Asset(assetValue.getString("path"), TYPES.get(type), assetValue.getString("atlas", null), assetValue.getBoolean("headless", false)));
+            }
+            groups.put(group.name, group);
+        }
+    }
+    
+    public Group getGroup(String name) {
+        Group group = groups.get(name);
+        if (group == null) {
+            throw new GdxRuntimeException("Asset group not found: " + name);
+        }
+        return group;
+    }
+    
+    public boolean hasGroup(String name) {
+        return groups.containsKey(name);
+    }
+    
+    /**
+     * @return The named groups ordered from highest to lowest priority, in
+     * which order they should be queued.
+     */
+    public Array<Group> getGroups(String... names) {
+        Array<Group> returnValue = new Array<Group>();
+        for (String name : names) {
+            returnValue.add(getGroup(name));
+        }
+        returnValue.sort(new Comparator<Group>() {
+            @Override
+            public int compare(Group o1, Group o2) {
+                return o2.priority - o1.priority;
+            }
+        });
+        return returnValue;
+    }
+    
+    public static class Group {
+        private final String name;
+        private final int priority;
+        private final Array<Asset> assets;
+
+        public Group(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+            assets = new Array<Asset>();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public Array<Asset> getAssets() {
+            return assets;
+        }
+    }
+    
+    public static class Asset {
+        private final String path;
+        private final Class type;
+        private final String atlas;
+        private final boolean headless;
+
+        public Asset(String path, Class type, String atlas, boolean headless) {
+            this.path = path;
+            this.type = type;
+            this.atlas = atlas;
+            this.headless = headless;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Class getType() {
+            return type;
+        }
+
+        /**
+         * @return The atlas a skeleton's attachments come from, or null.
+         */
+        public String getAtlas() {
+            return atlas;
+        }
+
+        public boolean isHeadless() {
+            return headless;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Sound;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays sound effects from a dedicated audio thread. The game thread requests
+ * sounds with {@link #play(SoundEffect, float)} during a tick and hands them
+ * over with {@link #flush()} at the end of it. Requests for the same sound
+ * within a tick are merged into one at the loudest volume. The audio thread
+ * enforces a voice limit per sound, replacing its oldest voice, and a global
+ * limit, dropping the request.
+ */
+public class AudioManager implements Runnable {
+    public static final int MAX_VOICES = 8;
+    private static final int QUEUE_CAPACITY = 64;
+    private final SoundEffect[] effects;
+    private final Sound[] sounds;
+    private final float[] pendingVolumes;
+    private final boolean[] pending;
+    private final long[] queue;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+    private final long[][] voiceIds;
+    private final long[][] voiceEnds;
+    private Thread thread;
+    private volatile boolean running;
+    private int mergedCount;
+    private int droppedCount;
+    private volatile int stolenCount;
+    private volatile int limitedCount;
+
+    public AudioManager() {
+        effects = SoundEffect.values();
+        sounds = new Sound[effects.length];
+        pendingVolumes = new float[effects.length];
+        pending = new boolean[effects.length];
+        queue = new long[QUEUE_CAPACITY];
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        voiceIds = new long[effects.length][];
+        voiceEnds = new long[effects.length][];
+        for (int i = 0; i < effects.length; i++) {
+            voiceIds[i] = new long[effects[i].getMaxVoices()];
+            voiceEnds[i] = new long[effects[i].getMaxVoices()];
+        }
+    }
+    
+    /**
+     * Looks up every sound effect once. Call after the sounds have loaded.
+     */
+    public void resolve(AssetManager assetManager) {
+        for (SoundEffect effect : effects) {
+            sounds[effect.ordinal()] = assetManager.get(effect.getPath(), Sound.class);
+        }
+    }
+    
+    public void start() {
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this, "Audio");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+    
+    public void stop() {
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+    
+    /**
+     * Requests a sound for the current tick. Only the thread running the
+     * simulation may call this.
+     */
+    public void play(SoundEffect effect, float volume) {
+        int index = effect.ordinal();
+        if (pending[index]) {
+            pendingVolumes[index] = Math.max(pendingVolumes[index], volume);
+            mergedCount++;
+        } else {
+            pending[index] = true;
+            pendingVolumes[index] = volume;
+        }
+    }
+    
+    /**
+     * Hands the sounds requested this tick to the audio thread. Never blocks;
+     * requests that do not fit in the queue are dropped.
+     */
+    public void flush() {
+        boolean flushed = false;
+        long t = tail.get();
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i]) {
+                pending[i] = false;
+                if (t - head.get() < QUEUE_CAPACITY) {
+                    queue[(int) (t % QUEUE_CAPACITY)] = ((long) i << 32) | (Float.floatToIntBits(pendingVolumes[i]) & 0xffffffffL);
+                    t++;
+                    flushed = true;
+                } else {
+                    droppedCount++;
+                }
+            }
+        }
+        
+        if (flushed) {
+            tail.lazySet(t);
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (running) {
+            long h = head.get();
+            long t = tail.get();
+            if (h == t) {
+                LockSupport.park(this);
+                continue;
+            }
+            
+            for (; h < t; h++) {
+                long request = queue[(int) (h % QUEUE_CAPACITY)];
+                dispatch((int) (request >>> 32), Float.intBitsToFloat((int) request));
+            }
+            head.lazySet(h);
+        }
+    }
+    
+    private void dispatch(int index, float volume) {
+        Sound sound = sounds[index];
+        if (sound == null) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        int activeVoices = 0;
+        for (int i = 0; i < voiceEnds.length; i++) {
+            for (int j = 0; j < voiceEnds[i].length; j++) {
+                if (voiceEnds[i][j] - now > 0) {
+                    activeVoices++;
+                }
+            }
+        }
+        
+        long[] ids = voiceIds[index];
+        long[] ends = voiceEnds[index];
+        int slot = 0;
+        for (int j = 1; j < ends.length; j++) {
+            if (ends[j] - ends[slot] < 0) {
+                slot = j;
+            }
+        }
+        
+        if (ends[slot] - now > 0) {
+            sound.stop(ids[slot]);
+            stolenCount++;
+        } else if (activeVoices >= MAX_VOICES) {
+            limitedCount++;
+            return;
+        }
+        
+        long id = sound.play(volume);
+        ids[slot] = id;
+        ends[slot] = id == -1 ? now : now + (long) (effects[index].getDuration() * 1000000000L);
+    }
+
+    /**
+     * @return Requests merged into another request for the same sound in the
+     * same tick.
+     */
+    public int getMergedCount() {
+        return mergedCount;
+    }
+
+    /**
+     * @return Requests dropped because the queue to the audio thread was full.
+     */
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return Voices stopped early to make room for the same sound.
+     */
+    public int getStolenCount() {
+        return stolenCount;
+    }
+
+    /**
+     * @return Requests skipped because {@link #MAX_VOICES} were playing.
+     */
+    public int getLimitedCount() {
+        return limitedCount;
+    }
+}
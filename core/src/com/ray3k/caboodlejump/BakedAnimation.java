@@ -0,0 +1,252 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.esotericsoftware.spine.Animation;
+import com.esotericsoftware.spine.AnimationState;
+import com.esotericsoftware.spine.AnimationStateData;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.SkeletonBounds;
+import com.esotericsoftware.spine.SkeletonData;
+import com.esotericsoftware.spine.Slot;
+import com.esotericsoftware.spine.attachments.Attachment;
+import com.esotericsoftware.spine.attachments.RegionAttachment;
+
+/**
+ * A looping Spine animation sampled once per frame duration into world
+ * vertices, UVs and bounding box polygons relative to the skeleton origin.
+ * Entities playing it only keep a frame index and their position, and draw
+ * and test collisions from the baked arrays instead of evaluating Spine.
+ * Only region attachments drawn with normal blending are baked.
+ */
+public class BakedAnimation {
+    private static final int QUAD_SIZE = 20;
+    private final int frameCount;
+    private final float frameDuration;
+    private final float[][] vertices;
+    private final Texture[][] textures;
+    private final float[][][] polygons;
+    private final float[] boundingBoxes;
+    private final float[] visualBounds;
+
+    private BakedAnimation(int frameCount, float frameDuration) {
+        this.frameCount = frameCount;
+        this.frameDuration = frameDuration;
+        vertices = new float[frameCount][];
+        textures = new Texture[frameCount][];
+        polygons = new float[frameCount][][];
+        boundingBoxes = new float[frameCount * 4];
+        visualBounds = new float[frameCount * 4];
+    }
+    
+    /**
+     * Samples {@code animationName} with {@code skin} applied, once every
+     * {@code frameDuration} seconds over one loop. Animations without keys
+     * bake to a single frame of the setup pose.
+     */
+    public static BakedAnimation bake(SkeletonData skeletonData, String skin, String animationName, float frameDuration) {
+        Animation animation = skeletonData.findAnimation(animationName);
+        if (animation == null) {
+            throw new GdxRuntimeException("Animation not found: " + animationName);
+        }
+        
+        Skeleton skeleton = new Skeleton(skeletonData);
+        skeleton.setSkin(skin);
+        skeleton.setToSetupPose();
+        skeleton.setPosition(0.0f, 0.0f);
+        AnimationState animationState = new AnimationState(new AnimationStateData(skeletonData));
+        animationState.setAnimation(0, animation, true);
+        SkeletonBounds skeletonBounds = new SkeletonBounds();
+        
+        int frameCount = Math.max(1, MathUtils.ceil(animation.getDuration() / frameDuration - MathUtils.FLOAT_ROUNDING_ERROR));
+        BakedAnimation baked = new BakedAnimation(frameCount, frameDuration);
+        
+        FloatArray frameVertices = new FloatArray();
+        Array<Texture> frameTextures = new Array<Texture>();
+        float[] quad = new float[QUAD_SIZE];
+        Color color = new Color();
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (frame > 0) {
+                animationState.update(frameDuration);
+            }
+            animationState.apply(skeleton);
+            skeleton.updateWorldTransform();
+            
+            frameVertices.clear();
+            frameTextures.clear();
+            Array<Slot> drawOrder = skeleton.getDrawOrder();
+            for (int i = 0; i < drawOrder.size; i++) {
+                Slot slot = drawOrder.get(i);
+                Attachment attachment = slot.getAttachment();
+                if (attachment instanceof RegionAttachment && ((RegionAttachment) attachment).getRegion() != null) {
+                    RegionAttachment region = (RegionAttachment) attachment;
+                    region.computeWorldVertices(slot.getBone(), quad, 0, 5);
+                    
+                    float packedColor = color.set(skeleton.getColor()).mul(slot.getColor()).mul(region.getColor()).toFloatBits();
+                    float[] uvs = region.getUVs();
+                    for (int u = 0, v = 2; u < 8; u += 2, v += 5) {
+                        quad[v] = packedColor;
+                        quad[v + 1] = uvs[u];
+                        quad[v + 2] = uvs[u + 1];
+                    }
+                    
+                    frameVertices.addAll(quad);
+                    frameTextures.add(region.getRegion().getTexture());
+                }
+            }
+            baked.vertices[frame] = frameVertices.toArray();
+            baked.textures[frame] = frameTextures.toArray(Texture.class);
+            
+            skeletonBounds.update(skeleton, true);
+            Array<FloatArray> framePolygons = skeletonBounds.getPolygons();
+            baked.polygons[frame] = new float[framePolygons.size][];
+            for (int i = 0; i < framePolygons.size; i++) {
+                baked.polygons[frame][i] = framePolygons.get(i).toArray();
+            }
+            
+            int index = frame * 4;
+            if (framePolygons.size > 0) {
+                baked.boundingBoxes[index] = skeletonBounds.getMinX();
+                baked.boundingBoxes[index + 1] = skeletonBounds.getMinY();
+                baked.boundingBoxes[index + 2] = skeletonBounds.getMaxX();
+                baked.boundingBoxes[index + 3] = skeletonBounds.getMaxY();
+            }
+            
+            if (frameVertices.size > 0) {
+                float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+                for (int i = 0; i < frameVertices.size; i += 5) {
+                    minX = Math.min(minX, frameVertices.get(i));
+                    minY = Math.min(minY, frameVertices.get(i + 1));
+                    maxX = Math.max(maxX, frameVertices.get(i));
+                    maxY = Math.max(maxY, frameVertices.get(i + 1));
+                }
+                baked.visualBounds[index] = minX;
+                baked.visualBounds[index + 1] = minY;
+                baked.visualBounds[index + 2] = maxX;
+                baked.visualBounds[index + 3] = maxY;
+            } else {
+                System.arraycopy(baked.boundingBoxes, index, baked.visualBounds, index, 4);
+            }
+        }
+        return baked;
+    }
+    
+    /**
+     * @return The frame showing at {@code time} seconds into the loop.
+     */
+    public int getFrame(float time) {
+        if (frameCount == 1) {
+            return 0;
+        }
+        return (int) (time / frameDuration) % frameCount;
+    }
+    
+    /**
+     * @return The length of one loop in seconds.
+     */
+    public float getDuration() {
+        return frameCount * frameDuration;
+    }
+    
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public float getFrameDuration() {
+        return frameDuration;
+    }
+    
+    public int getPolygonCount(int frame) {
+        return polygons[frame].length;
+    }
+    
+    /**
+     * @return The packed x/y vertices of a bounding box polygon, relative to
+     * the skeleton origin.
+     */
+    public float[] getPolygon(int frame, int index) {
+        return polygons[frame][index];
+    }
+    
+    /**
+     * Fills {@code out} with a bounding box polygon moved to {@code x},
+     * {@code y}.
+     */
+    public FloatArray getPolygon(int frame, int index, float x, float y, FloatArray out) {
+        float[] polygon = polygons[frame][index];
+        out.clear();
+        out.ensureCapacity(polygon.length);
+        for (int i = 0; i < polygon.length; i += 2) {
+            out.add(polygon[i] + x);
+            out.add(polygon[i + 1] + y);
+        }
+        return out;
+    }
+    
+    /**
+     * Sets {@code out} to the area covered by every bounding box polygon of a
+     * frame, moved to {@code x}, {@code y}.
+     */
+    public Rectangle getBoundingBox(int frame, float x, float y, Rectangle out) {
+        return set(boundingBoxes, frame, x, y, out);
+    }
+    
+    /**
+     * Sets {@code out} to the area drawn by a frame, moved to {@code x},
+     * {@code y}.
+     */
+    public Rectangle getVisualBounds(int frame, float x, float y, Rectangle out) {
+        return set(visualBounds, frame, x, y, out);
+    }
+    
+    private Rectangle set(float[] bounds, int frame, float x, float y, Rectangle out) {
+        int index = frame * 4;
+        return out.set(bounds[index] + x, bounds[index + 1] + y, bounds[index + 2] - bounds[index], bounds[index + 3] - bounds[index + 1]);
+    }
+    
+    /**
+     * Draws a frame with the skeleton origin at {@code x}, {@code y}. Quads
+     * sharing a texture are added as a single command.
+     */
+    public void draw(RenderCommandBuffer buffer, int frame, float x, float y) {
+        float[] frameVertices = vertices[frame];
+        Texture[] frameTextures = textures[frame];
+        
+        int start = 0;
+        for (int i = 1; i <= frameTextures.length; i++) {
+            if (i == frameTextures.length || frameTextures[i] != frameTextures[start]) {
+                buffer.drawTranslated(frameTextures[start], frameVertices, start * QUAD_SIZE, (i - start) * QUAD_SIZE, x, y);
+                start = i;
+            }
+        }
+    }
+}
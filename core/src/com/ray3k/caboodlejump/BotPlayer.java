@@ -0,0 +1,267 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.ray3k.caboodlejump.entities.PlatformEntity;
+import com.ray3k.caboodlejump.entities.PlayerEntity;
+import com.ray3k.caboodlejump.states.GameState;
+import java.util.Comparator;
+
+/**
+ * Plays {@link GameState} without a human by writing to a
+ * {@link ProgrammaticPlayerInput}. On every jump the bot looks ahead at the
+ * platforms above the player, keeps those it can still land on given the
+ * current velocity, gravity and {@link PlayerEntity#MOVE_SPEED}, and steers
+ * towards the best of them, braking early enough for friction to stop it over
+ * the platform.
+ * <p>
+ * Set the bot with {@link Core#setBot(BotPlayer)}. Its input then becomes the
+ * player's input and the game state calls {@link #update(GameState, float)}
+ * before every tick.
+ */
+public class BotPlayer {
+    public static final String RANDOM_STREAM = "bot";
+    private final ProgrammaticPlayerInput input;
+    private final Skill skill;
+    private final Rectangle area;
+    private final Array<Entity> results;
+    private final Array<PlatformEntity> candidates;
+    private final Comparator<PlatformEntity> heightComparator;
+    private PlayerEntity player;
+    private PlatformEntity target;
+    private float aimOffset;
+    private float waitTime;
+    private int jumps;
+    private int retargets;
+    
+    /**
+     * How well the bot plays.
+     */
+    public static enum Skill {
+        EASY(0.6f, 60.0f, 1), NORMAL(0.25f, 20.0f, 3), EXPERT(0.0f, 0.0f, 6);
+        
+        /**
+         * Seconds the bot waits before the first jump of a game.
+         */
+        public final float reactionTime;
+        /**
+         * Largest distance in pixels the bot aims away from the middle of its
+         * target.
+         */
+        public final float aimError;
+        /**
+         * Number of platforms above the player the bot considers on each jump.
+         */
+        public final int lookahead;
+
+        private Skill(float reactionTime, float aimError, int lookahead) {
+            this.reactionTime = reactionTime;
+            this.aimError = aimError;
+            this.lookahead = lookahead;
+        }
+    }
+
+    public BotPlayer(Skill skill) {
+        this.skill = skill;
+        input = new ProgrammaticPlayerInput();
+        area = new Rectangle();
+        results = new Array<Entity>();
+        candidates = new Array<PlatformEntity>();
+        heightComparator = new Comparator<PlatformEntity>() {
+            @Override
+            public int compare(PlatformEntity o1, PlatformEntity o2) {
+                return Float.compare(getTop(o1), getTop(o2));
+            }
+        };
+    }
+    
+    /**
+     * Sets the input for the coming tick.
+     */
+    public void update(GameState gameState, float delta) {
+        input.advance();
+        
+        PlayerEntity current = gameState.getPlayerEntity();
+        if (current != player) {
+            player = current;
+            target = null;
+            waitTime = 0.0f;
+        }
+        
+        if (player == null || player.isDestroyed()) {
+            input.set(false, false, false);
+        } else if (player.isStanding()) {
+            waitTime += delta;
+            input.set(waitTime >= skill.reactionTime && !input.isUp(), false, false);
+        } else if (!player.isJumping()) {
+            target = null;
+            input.set(false, false, false);
+        } else {
+            if (target == null) {
+                jumps++;
+                chooseTarget(gameState);
+            } else if (target.isDestroyed() || player.getYspeed() < 0.0f && player.getY() < getTop(target)) {
+                retargets++;
+                chooseTarget(gameState);
+            }
+            steer();
+        }
+    }
+    
+    /**
+     * Picks the platform with the most room for error among the next
+     * {@link Skill#lookahead} platforms above the player, or the best platform
+     * at or below the player if none of those can be reached.
+     */
+    private void chooseTarget(GameState gameState) {
+        float gravity = gameState.getGravity();
+        float yspeed = player.getYspeed();
+        float apex = player.getY() + (yspeed > 0.0f ? yspeed * yspeed / (2.0f * gravity) : 0.0f);
+        float height = gameState.getCore().getHeight();
+        area.set(0.0f, player.getY() - height, gameState.getCore().getWidth(), apex - player.getY() + height);
+        gameState.getEntityManager().query(area, GameState.LAYER_PLATFORM, results);
+        
+        for (int i = 0; i < results.size; i++) {
+            PlatformEntity platform = (PlatformEntity) results.get(i);
+            if (!platform.isDestroyed() && getTop(platform) <= apex) {
+                candidates.add(platform);
+            }
+        }
+        results.clear();
+        candidates.sort(heightComparator);
+        
+        int above = 0;
+        while (above < candidates.size && getTop(candidates.get(above)) <= player.getY()) {
+            above++;
+        }
+        target = findBest(gameState, above, Math.min(above + skill.lookahead, candidates.size));
+        if (target == null) {
+            target = findBest(gameState, 0, above);
+        }
+        candidates.clear();
+        
+        aimOffset = skill.aimError > 0.0f ? RandomStreams.random(gameState.getRandom().get(RANDOM_STREAM), -skill.aimError, skill.aimError) : 0.0f;
+    }
+    
+    private PlatformEntity findBest(GameState gameState, int start, int end) {
+        PlatformEntity best = null;
+        float bestMargin = 0.0f;
+        for (int i = start; i < end; i++) {
+            PlatformEntity platform = candidates.get(i);
+            float margin = getMargin(gameState, platform);
+            if (margin >= 0.0f && (best == null || margin > bestMargin)) {
+                best = platform;
+                bestMargin = margin;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * @return How far in pixels the middle of the platform is inside the range
+     * of x positions the player can be at when falling past the platform's top,
+     * or a negative number if the player cannot land on it.
+     */
+    private float getMargin(GameState gameState, PlatformEntity platform) {
+        float gravity = gameState.getGravity();
+        float yspeed = player.getYspeed();
+        float discriminant = yspeed * yspeed - 2.0f * gravity * (getTop(platform) - player.getY());
+        if (discriminant < 0.0f) {
+            return -1.0f;
+        }
+        
+        float time = (yspeed + (float) Math.sqrt(discriminant)) / gravity;
+        float reach = 0.5f * PlayerEntity.MOVE_SPEED * time * time;
+        float drift = player.getX() + player.getXspeed() * time;
+        return reach + getHalfWidth(platform) - Math.abs(getCenterX(platform) - drift);
+    }
+    
+    /**
+     * Holds left or right while the player would otherwise stop short of the
+     * target, and lets friction brake once it would stop on it.
+     */
+    private void steer() {
+        if (target == null) {
+            input.set(false, false, false);
+            return;
+        }
+        
+        float xspeed = player.getXspeed();
+        float stop = player.getX() + xspeed * Math.abs(xspeed) / (2.0f * PlayerEntity.FRICTION);
+        float offset = getCenterX(target) + MathUtils.clamp(aimOffset, -getHalfWidth(target), getHalfWidth(target)) - stop;
+        float tolerance = getHalfWidth(target) * 0.25f;
+        input.set(false, offset < -tolerance, offset > tolerance);
+    }
+    
+    private static float getTop(PlatformEntity platform) {
+        FloatArray polygon = platform.getLandingPolygon();
+        float value = -Float.MAX_VALUE;
+        for (int i = 1; i < polygon.size; i += 2) {
+            value = Math.max(value, polygon.items[i]);
+        }
+        return value;
+    }
+    
+    private static float getCenterX(PlatformEntity platform) {
+        FloatArray polygon = platform.getLandingPolygon();
+        return (PolygonUtils.getMinX(polygon.items, polygon.size) + PolygonUtils.getMaxX(polygon.items, polygon.size)) / 2.0f;
+    }
+    
+    private static float getHalfWidth(PlatformEntity platform) {
+        FloatArray polygon = platform.getLandingPolygon();
+        return (PolygonUtils.getMaxX(polygon.items, polygon.size) - PolygonUtils.getMinX(polygon.items, polygon.size)) / 2.0f;
+    }
+
+    public ProgrammaticPlayerInput getInput() {
+        return input;
+    }
+
+    public Skill getSkill() {
+        return skill;
+    }
+
+    public PlatformEntity getTarget() {
+        return target;
+    }
+
+    /**
+     * @return Number of jumps the bot has planned since it was created.
+     */
+    public int getJumps() {
+        return jumps;
+    }
+
+    /**
+     * @return Number of times the bot missed or lost its target mid jump and
+     * picked another.
+     */
+    public int getRetargets() {
+        return retargets;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.esotericsoftware.spine.Bone;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.SkeletonBounds;
+import com.esotericsoftware.spine.Slot;
+import com.esotericsoftware.spine.attachments.Attachment;
+import com.esotericsoftware.spine.attachments.BoundingBoxAttachment;
+
+/**
+ * SkeletonBounds that only recomputes its polygons when the pose of the
+ * bounding boxes changes. If the skeleton has only moved since the last
+ * recompute, the cached polygons and AABB are translated by the position
+ * delta instead. The pose is the attachment of every slot plus the world
+ * transform, relative to the skeleton position, of each bounding box bone.
+ */
+public class CachedSkeletonBounds extends SkeletonBounds {
+    /**
+     * How far a bone may drift relative to the skeleton, in world units,
+     * before the pose counts as changed. Absorbs float error from moving the
+     * skeleton.
+     */
+    public static final float POSE_TOLERANCE = .001f;
+    private Skeleton skeleton;
+    private boolean valid;
+    private boolean aabb;
+    private Attachment[] attachments;
+    private float[] transforms;
+    private final Array<FloatArray> basePolygons;
+    private float baseX;
+    private float baseY;
+    private float offsetX;
+    private float offsetY;
+    private int recomputeCount;
+    private int translateCount;
+
+    public CachedSkeletonBounds() {
+        basePolygons = new Array<FloatArray>();
+        valid = false;
+    }
+    
+    @Override
+    public void update(Skeleton skeleton, boolean updateAabb) {
+        if (valid && skeleton == this.skeleton && (aabb || !updateAabb) && !isPoseChanged()) {
+            translate(skeleton.getX(), skeleton.getY());
+            translateCount++;
+        } else {
+            super.update(skeleton, updateAabb);
+            storePose(skeleton, updateAabb);
+            recomputeCount++;
+        }
+    }
+    
+    /**
+     * Forces the next update to recompute the polygons.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+    
+    private boolean isPoseChanged() {
+        Array<Slot> slots = skeleton.getSlots();
+        if (slots.size != attachments.length) {
+            return true;
+        }
+        
+        float x = skeleton.getX();
+        float y = skeleton.getY();
+        for (int i = 0, t = 0; i < slots.size; i++, t += 6) {
+            Slot slot = slots.get(i);
+            Attachment attachment = slot.getAttachment();
+            if (attachment != attachments[i]) {
+                return true;
+            }
+            
+            if (attachment instanceof BoundingBoxAttachment) {
+                if (slot.getAttachmentVertices().size > 0) {
+                    return true;
+                }
+                
+                Bone bone = slot.getBone();
+                if (!isEqual(bone.getA(), transforms[t]) || !isEqual(bone.getB(), transforms[t + 1])
+                        || !isEqual(bone.getC(), transforms[t + 2]) || !isEqual(bone.getD(), transforms[t + 3])
+                        || !isEqual(bone.getWorldX() - x, transforms[t + 4]) || !isEqual(bone.getWorldY() - y, transforms[t + 5])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isEqual(float a, float b) {
+        return Math.abs(a - b) <= POSE_TOLERANCE;
+    }
+    
+    private void storePose(Skeleton skeleton, boolean updateAabb) {
+        this.skeleton = skeleton;
+        aabb = updateAabb;
+        baseX = skeleton.getX();
+        baseY = skeleton.getY();
+        offsetX = 0.0f;
+        offsetY = 0.0f;
+        
+        Array<Slot> slots = skeleton.getSlots();
+        if (attachments == null || attachments.length != slots.size) {
+            attachments = new Attachment[slots.size];
+            transforms = new float[slots.size * 6];
+        }
+        for (int i = 0, t = 0; i < slots.size; i++, t += 6) {
+            Slot slot = slots.get(i);
+            Bone bone = slot.getBone();
+            attachments[i] = slot.getAttachment();
+            transforms[t] = bone.getA();
+            transforms[t + 1] = bone.getB();
+            transforms[t + 2] = bone.getC();
+            transforms[t + 3] = bone.getD();
+            transforms[t + 4] = bone.getWorldX() - baseX;
+            transforms[t + 5] = bone.getWorldY() - baseY;
+        }
+        
+        Array<FloatArray> polygons = getPolygons();
+        while (basePolygons.size < polygons.size) {
+            basePolygons.add(new FloatArray());
+        }
+        basePolygons.truncate(polygons.size);
+        for (int i = 0; i < polygons.size; i++) {
+            FloatArray basePolygon = basePolygons.get(i);
+            basePolygon.clear();
+            basePolygon.addAll(polygons.get(i));
+        }
+        valid = true;
+    }
+    
+    /**
+     * Moves the polygons to the cached pose offset by the skeleton's movement
+     * since the last recompute, so float error does not accumulate.
+     */
+    private void translate(float x, float y) {
+        float dx = x - baseX;
+        float dy = y - baseY;
+        if (dx == offsetX && dy == offsetY) {
+            return;
+        }
+        
+        Array<FloatArray> polygons = getPolygons();
+        for (int i = 0; i < polygons.size; i++) {
+            float[] base = basePolygons.get(i).items;
+            float[] polygon = polygons.get(i).items;
+            for (int j = 0, n = polygons.get(i).size; j < n; j += 2) {
+                polygon[j] = base[j] + dx;
+                polygon[j + 1] = base[j + 1] + dy;
+            }
+        }
+        offsetX = dx;
+        offsetY = dy;
+    }
+
+    @Override
+    public float getMinX() {
+        return super.getMinX() + offsetX;
+    }
+
+    @Override
+    public float getMinY() {
+        return super.getMinY() + offsetY;
+    }
+
+    @Override
+    public float getMaxX() {
+        return super.getMaxX() + offsetX;
+    }
+
+    @Override
+    public float getMaxY() {
+        return super.getMaxY() + offsetY;
+    }
+
+    @Override
+    public boolean aabbContainsPoint(float x, float y) {
+        return super.aabbContainsPoint(x - offsetX, y - offsetY);
+    }
+
+    @Override
+    public boolean aabbIntersectsSegment(float x1, float y1, float x2, float y2) {
+        return super.aabbIntersectsSegment(x1 - offsetX, y1 - offsetY, x2 - offsetX, y2 - offsetY);
+    }
+
+    @Override
+    public boolean aabbIntersectsSkeleton(SkeletonBounds bounds) {
+        return getMinX() < bounds.getMaxX() && getMaxX() > bounds.getMinX() && getMinY() < bounds.getMaxY() && getMaxY() > bounds.getMinY();
+    }
+
+    /**
+     * @return How many updates recomputed the polygons.
+     */
+    public int getRecomputeCount() {
+        return recomputeCount;
+    }
+
+    /**
+     * @return How many updates reused the cached polygons.
+     */
+    public int getTranslateCount() {
+        return translateCount;
+    }
+}
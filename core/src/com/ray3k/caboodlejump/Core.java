@@ -4,14 +4,17 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.resolvers.LocalFileHandleResolver;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.g2d.PixmapPacker;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.esotericsoftware.spine.AnimationStateData;
 import com.esotericsoftware.spine.SkeletonData;
 import com.esotericsoftware.spine.SkeletonRenderer;
 import com.esotericsoftware.spine.utils.TwoColorPolygonBatch;
@@ -25,20 +28,70 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JOptionPane;
 
 public class Core extends ApplicationAdapter {
     public final static String VERSION = "1";
     public final static String DATA_PATH = "caboodle_jump_data";
-    private final static long MS_PER_UPDATE = 10;
+    public final static int TICK_RATE = 100;
+    public final static int MAX_STEPS_PER_FRAME = 10;
+    public final static String[] PLATFORM_SKINS = {"platform", "moving", "falling"};
+    public final static String MANIFEST_PATH = DATA_PATH + "/assets.json";
+    public final static String BOOTSTRAP_GROUP = "bootstrap";
+    public final static String[] CHARACTERS = {"rex", "rose"};
     private AssetManager assetManager;
     private StateManager stateManager;
     private SpriteBatch spriteBatch;
     private PixmapPacker pixmapPacker;
-    private long previous;
-    private long lag;
+    private GameLoop gameLoop;
+    private boolean threadedSimulation;
+    private boolean motionStore;
+    private boolean parallelUpdate;
+    private ForkJoinPool forkJoinPool;
+    private SimulationThread simulationThread;
+    private SnapshotBuffer snapshotBuffer;
     private TextureAtlas atlas;
     private SkeletonRenderer skeletonRenderer;
+    private ObjectMap<SkeletonData, AnimationStateData> animationStateDatas;
+    private ObjectMap<String, BakedAnimation> bakedAnimations;
+    private SkeletonDataLoader skeletonDataLoader;
+    private AssetManifest assetManifest;
+    private AudioManager audioManager;
+    private Profiler profiler;
+    private final ObjectSet<String> queuedGroups;
+    private AsyncExecutor skeletonLoaderExecutor;
+    private AsyncExecutor generatorExecutor;
+    private final boolean headless;
+    private int width;
+    private int height;
+    private final InputManager inputManager;
+    private PlayerInput playerInput;
+    private BotPlayer bot;
+    private Long seed;
+    private String recordPath;
+    private String replayPath;
+    private float replaySpeed;
+    
+    public Core() {
+        this(false);
+    }
+    
+    /**
+     * @param headless When true no GL resources, UI or sounds are created and
+     * only the game state is available. Assets are loaded synchronously in
+     * {@link #create()} and the caller is responsible for loading a state and
+     * ticking the {@link StateManager}.
+     */
+    public Core(boolean headless) {
+        this.headless = headless;
+        width = 800;
+        height = 800;
+        replaySpeed = 1.0f;
+        inputManager = new InputManager();
+        playerInput = headless ? new ProgrammaticPlayerInput() : inputManager;
+        queuedGroups = new ObjectSet<String>();
+    }
 
     @Override
     public void create() {
@@ -47,13 +100,21 @@ public class Core extends ApplicationAdapter {
 
             loadAssets();
 
-            previous = TimeUtils.millis();
-            lag = 0;
+            gameLoop.start();
 
-            stateManager.loadState("loading");
+            if (headless) {
+                assetManager.finishLoading();
+                bakeAnimations();
+            } else {
+                stateManager.loadState("loading");
+            }
         } catch (Exception e) {
             e.printStackTrace();
             
+            if (headless) {
+                throw new GdxRuntimeException(e);
+            }
+            
             FileWriter fw = null;
             try {
                 fw = new FileWriter(Gdx.files.local("java-stacktrace.txt").file(), true);
@@ -81,38 +142,64 @@ public class Core extends ApplicationAdapter {
     
     public void initManagers() {
         assetManager = new AssetManager(new LocalFileHandleResolver(), true);
-        assetManager.setLoader(SkeletonData.class, new SkeletonDataLoader(new LocalFileHandleResolver()));
+        skeletonLoaderExecutor = new AsyncExecutor(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        skeletonDataLoader = new SkeletonDataLoader(new LocalFileHandleResolver(), skeletonLoaderExecutor);
+        generatorExecutor = new AsyncExecutor(1);
+        assetManager.setLoader(SkeletonData.class, skeletonDataLoader);
         
+        profiler = new Profiler();
+        inputManager.setProfiler(profiler);
         stateManager = new StateManager(this);
-        stateManager.addState("loading", new LoadingState("menu", this));
-        stateManager.addState("menu", new MenuState(this));
         stateManager.addState("game", new GameState(this));
         stateManager.addState("game-over", new GameOverState(this));
         
-        spriteBatch = new SpriteBatch();
+        if (!headless) {
+            stateManager.addState("loading", new LoadingState("menu", this));
+            stateManager.addState("menu", new MenuState(this));
+            
+            spriteBatch = new SpriteBatch();
+
+            pixmapPacker = new PixmapPacker(1024, 1024, Pixmap.Format.RGBA8888, 5, true, new PixmapPacker.GuillotineStrategy());
+
+            skeletonRenderer = new SkeletonRenderer();
+            
+            audioManager = new AudioManager();
+            audioManager.start();
+        }
+        
+        animationStateDatas = new ObjectMap<SkeletonData, AnimationStateData>();
+        bakedAnimations = new ObjectMap<String, BakedAnimation>();
         
-        pixmapPacker = new PixmapPacker(1024, 1024, Pixmap.Format.RGBA8888, 5, true, new PixmapPacker.GuillotineStrategy());
+        gameLoop = new GameLoop(TICK_RATE, MAX_STEPS_PER_FRAME);
         
-        skeletonRenderer = new SkeletonRenderer();
+        if (parallelUpdate) {
+            forkJoinPool = new ForkJoinPool();
+        }
+        
+        if (threadedSimulation && !headless) {
+            snapshotBuffer = new SnapshotBuffer();
+            simulationThread = new SimulationThread(stateManager, snapshotBuffer, new GameLoop(TICK_RATE, MAX_STEPS_PER_FRAME));
+        }
     }
     
     @Override
     public void render() {
         try {
-            long current = TimeUtils.millis();
-            long elapsed = current - previous;
-            previous = current;
-            lag += elapsed;
-
-            while (lag >= MS_PER_UPDATE) {
-                stateManager.act(MS_PER_UPDATE / 1000.0f);
-                lag -= MS_PER_UPDATE;
+            profiler.begin(Profiler.FRAME);
+            if (simulationThread != null) {
+                renderThreaded();
+            } else {
+                renderSingleThreaded();
             }
-
-            stateManager.draw(spriteBatch, lag / MS_PER_UPDATE);
+            profiler.end(Profiler.FRAME);
+            profiler.commit(Profiler.FRAME);
         } catch (Exception e) {
             e.printStackTrace();
             
+            if (headless) {
+                throw new GdxRuntimeException(e);
+            }
+            
             FileWriter fw = null;
             try {
                 fw = new FileWriter(Gdx.files.local("java-stacktrace.txt").file(), true);
@@ -138,41 +225,186 @@ public class Core extends ApplicationAdapter {
         }
     }
 
+    private void renderSingleThreaded() {
+        int steps = gameLoop.advance();
+        for (int i = 0; i < steps; i++) {
+            stateManager.act(gameLoop.getTickDuration(), gameLoop.getTickTime(i));
+        }
+
+        stateManager.draw(spriteBatch, gameLoop.getAlpha());
+    }
+    
+    private void renderThreaded() {
+        if (simulationThread.getError() != null) {
+            throw new GdxRuntimeException(simulationThread.getError());
+        }
+        
+        if (stateManager.isStatePending()) {
+            simulationThread.stop();
+            stateManager.loadPendingState();
+        }
+        
+        if (stateManager.isLoadedStateThreadable()) {
+            simulationThread.start();
+            
+            RenderSnapshot snapshot = snapshotBuffer.read();
+            float alpha = 0.0f;
+            if (snapshot.getTime() != 0) {
+                long tickNanos = simulationThread.getGameLoop().getTickNanos();
+                alpha = MathUtils.clamp((System.nanoTime() - snapshot.getTime()) / (float) tickNanos, 0.0f, 1.0f);
+            }
+            stateManager.drawSnapshot(spriteBatch, snapshot, alpha);
+        } else {
+            if (simulationThread.isRunning()) {
+                simulationThread.stop();
+                gameLoop.start();
+            }
+            renderSingleThreaded();
+        }
+    }
+
     @Override
     public void dispose() {
+        if (simulationThread != null) {
+            simulationThread.stop();
+        }
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+        if (audioManager != null) {
+            audioManager.stop();
+        }
         assetManager.dispose();
+        skeletonLoaderExecutor.dispose();
+        generatorExecutor.dispose();
         stateManager.dispose();
-        pixmapPacker.dispose();
+        inputManager.dispose();
+        if (pixmapPacker != null) {
+            pixmapPacker.dispose();
+        }
         if (atlas != null) {
             atlas.dispose();
         }
     }
     
+    /**
+     * Reads the asset manifest and queues the bootstrap group. Other groups,
+     * such as characters, are loaded on demand with {@link #loadGroup(String)}.
+     */
     public void loadAssets() {
         assetManager.clear();
-        SkeletonDataLoaderParameter parameter = new SkeletonDataLoaderParameter(DATA_PATH + "/spine/caboodle-jump.atlas");
-        assetManager.load(DATA_PATH + "/spine/Jump Bud.json", SkeletonData.class, parameter);
-        assetManager.load(DATA_PATH + "/spine/Jumpasaurus Rex.json", SkeletonData.class, parameter);
-        assetManager.load(DATA_PATH + "/spine/platform.json", SkeletonData.class, parameter);
+        skeletonDataLoader.clear();
+        queuedGroups.clear();
+        assetManifest = new AssetManifest(Gdx.files.local(MANIFEST_PATH));
+        loadGroup(BOOTSTRAP_GROUP);
+    }
+    
+    /**
+     * Queues every asset in the named groups, highest priority first. Groups
+     * that are already queued or loaded are skipped.
+     */
+    public void loadGroup(String... names) {
+        for (AssetManifest.Group group : assetManifest.getGroups(names)) {
+            if (queuedGroups.add(group.getName())) {
+                for (AssetManifest.Asset asset : group.getAssets()) {
+                    if (headless && !asset.isHeadless()) {
+                        continue;
+                    }
+                    
+                    String path = DATA_PATH + "/" + asset.getPath();
+                    if (asset.getType() == SkeletonData.class) {
+                        String atlasName = headless || asset.getAtlas() == null ? null : DATA_PATH + "/" + asset.getAtlas();
+                        skeletonDataLoader.load(assetManager, path, new SkeletonDataLoaderParameter(atlasName));
+                    } else {
+                        assetManager.load(path, asset.getType());
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Queues a group if needed and blocks until everything queued has loaded.
+     */
+    public void finishLoadingGroup(String name) {
+        loadGroup(name);
+        if (!isGroupLoaded(name)) {
+            assetManager.finishLoading();
+        }
+    }
+    
+    public boolean isGroupLoaded(String name) {
+        if (!queuedGroups.contains(name)) {
+            return false;
+        }
         
-        assetManager.load(DATA_PATH + "/ui/caboodle-jump-ui.json", Skin.class);
+        for (AssetManifest.Asset asset : assetManifest.getGroup(name).getAssets()) {
+            if ((!headless || asset.isHeadless()) && !assetManager.isLoaded(DATA_PATH + "/" + asset.getPath())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Unloads, or removes from the queue, every asset of a group. Skeletons
+     * that are released also drop their shared {@link AnimationStateData}.
+     */
+    public void unloadGroup(String name) {
+        if (queuedGroups.remove(name)) {
+            for (AssetManifest.Asset asset : assetManifest.getGroup(name).getAssets()) {
+                if (!headless || asset.isHeadless()) {
+                    String path = DATA_PATH + "/" + asset.getPath();
+                    SkeletonData skeletonData = assetManager.isLoaded(path, SkeletonData.class) ? assetManager.get(path, SkeletonData.class) : null;
+                    assetManager.unload(path);
+                    if (skeletonData != null && !assetManager.isLoaded(path)) {
+                        animationStateDatas.remove(skeletonData);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return The name of the asset group holding a character's skeleton.
+     */
+    public static String getCharacterGroup(String character) {
+        return "character-" + character;
+    }
 
-        assetManager.load(DATA_PATH + "/gfx/white.png", Pixmap.class);
-        
-        assetManager.load(DATA_PATH + "/sfx/break.wav", Sound.class);
-        assetManager.load(DATA_PATH + "/sfx/fall.wav", Sound.class);
-        assetManager.load(DATA_PATH + "/sfx/jump.wav", Sound.class);
-        assetManager.load(DATA_PATH + "/sfx/point.wav", Sound.class);
+    /**
+     * @return The sound dispatcher, or null when headless.
+     */
+    public AudioManager getAudioManager() {
+        return audioManager;
+    }
+
+    /**
+     * @return The single background thread that generates level chunks.
+     */
+    public AsyncExecutor getGeneratorExecutor() {
+        return generatorExecutor;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    public AssetManifest getAssetManifest() {
+        return assetManifest;
     }
 
     @Override
     public void resume() {
-        
+        gameLoop.resume();
     }
 
     @Override
     public void pause() {
-        
+        gameLoop.pause();
+        if (simulationThread != null) {
+            simulationThread.stop();
+        }
     }
 
     @Override
@@ -200,7 +432,193 @@ public class Core extends ApplicationAdapter {
         this.atlas = atlas;
     }
 
+    public GameLoop getGameLoop() {
+        return gameLoop;
+    }
+
+    public boolean isThreadedSimulation() {
+        return threadedSimulation;
+    }
+
+    /**
+     * Runs the simulation of threadable states on its own thread. Must be set
+     * before {@link #create()}.
+     */
+    public void setThreadedSimulation(boolean threadedSimulation) {
+        this.threadedSimulation = threadedSimulation;
+    }
+
+    public boolean isMotionStore() {
+        return motionStore;
+    }
+
+    /**
+     * Keeps entity motion in a {@link MotionStore} for states created after
+     * this is set.
+     */
+    public void setMotionStore(boolean motionStore) {
+        this.motionStore = motionStore;
+    }
+
+    public boolean isParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    /**
+     * Updates entities on a fork/join pool with one worker per core. Must be
+     * set before {@link #create()}.
+     */
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+
+    /**
+     * @return The pool shared by entity managers in parallel update mode. It
+     * is created on first use when a replay recorded in parallel mode runs
+     * without {@link #setParallelUpdate(boolean)}.
+     */
+    public ForkJoinPool getForkJoinPool() {
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool();
+        }
+        return forkJoinPool;
+    }
+
     public SkeletonRenderer getSkeletonRenderer() {
         return skeletonRenderer;
     }
+    
+    public boolean isHeadless() {
+        return headless;
+    }
+    
+    public int getWidth() {
+        return headless ? width : Gdx.graphics.getWidth();
+    }
+    
+    public int getHeight() {
+        return headless ? height : Gdx.graphics.getHeight();
+    }
+    
+    /**
+     * Sets the simulated screen size used by headless cores.
+     */
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return The keyboard input, which is also the player's input unless
+     * another one has been set.
+     */
+    public InputManager getInputManager() {
+        return inputManager;
+    }
+
+    public PlayerInput getPlayerInput() {
+        return playerInput;
+    }
+
+    public void setPlayerInput(PlayerInput playerInput) {
+        this.playerInput = playerInput;
+    }
+    
+    public BotPlayer getBot() {
+        return bot;
+    }
+
+    /**
+     * Lets the bot play every game instead of the player and makes its input
+     * the player's input. May be null.
+     */
+    public void setBot(BotPlayer bot) {
+        this.bot = bot;
+        if (bot != null) {
+            playerInput = bot.getInput();
+        }
+    }
+    
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Starts every game from this seed instead of a random one. May be null.
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public String getRecordPath() {
+        return recordPath;
+    }
+
+    /**
+     * Records every game to this local file, overwriting the previous one.
+     * May be null.
+     */
+    public void setRecordPath(String recordPath) {
+        this.recordPath = recordPath;
+    }
+
+    public String getReplayPath() {
+        return replayPath;
+    }
+
+    /**
+     * Plays every game back from this local recording instead of reading the
+     * player's input. May be null.
+     */
+    public void setReplayPath(String replayPath) {
+        this.replayPath = replayPath;
+    }
+
+    public float getReplaySpeed() {
+        return replaySpeed;
+    }
+
+    public void setReplaySpeed(float replaySpeed) {
+        this.replaySpeed = replaySpeed;
+    }
+    
+    /**
+     * Scales the clock of the game loop and, if there is one, the simulation
+     * thread's loop.
+     */
+    public void setTimeScale(float timeScale) {
+        gameLoop.setTimeScale(timeScale);
+        if (simulationThread != null) {
+            simulationThread.getGameLoop().setTimeScale(timeScale);
+        }
+    }
+    
+    public AnimationStateData getAnimationStateData(SkeletonData skeletonData) {
+        AnimationStateData animationStateData = animationStateDatas.get(skeletonData);
+        if (animationStateData == null) {
+            animationStateData = new AnimationStateData(skeletonData);
+            animationStateData.setDefaultMix(.25f);
+            animationStateDatas.put(skeletonData, animationStateData);
+        }
+        return animationStateData;
+    }
+    
+    /**
+     * Bakes the looping platform animation for each platform skin at the tick
+     * rate. Called once the skeletons have loaded.
+     */
+    public void bakeAnimations() {
+        SkeletonData skeletonData = assetManager.get(DATA_PATH + "/spine/platform.json", SkeletonData.class);
+        for (String skin : PLATFORM_SKINS) {
+            bakedAnimations.put(skin, BakedAnimation.bake(skeletonData, skin, "animation", gameLoop.getTickDuration()));
+        }
+    }
+    
+    /**
+     * @return The baked animation for a platform skin, or null if
+     * {@link #bakeAnimations()} has not run.
+     */
+    public BakedAnimation getBakedAnimation(String name) {
+        return bakedAnimations.get(name);
+    }
 }
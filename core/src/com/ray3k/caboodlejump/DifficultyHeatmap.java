@@ -0,0 +1,223 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.ray3k.caboodlejump.states.GameState;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link JumpSolver#getDifficulty(float, float)} sampled over a grid of
+ * platform spacing, gravity and jump power. Reaches are solved a whole
+ * spacing column at a time, so covering the stage settings takes
+ * milliseconds.
+ */
+public class DifficultyHeatmap {
+    private static final Color IMPOSSIBLE_COLOR = new Color(.15f, .15f, .15f, 1.0f);
+    private final float range;
+    private final float[] spacings;
+    private final float[] gravities;
+    private final float[] jumpPowers;
+    private final float[] reaches;
+    private final float[] difficulties;
+    private long computeNanos;
+
+    /**
+     * @param range The width of the strip platforms are placed in.
+     */
+    public DifficultyHeatmap(float range, float minSpacing, float maxSpacing, int spacingSteps, float minGravity, float maxGravity, int gravitySteps, float minJumpPower, float maxJumpPower, int jumpPowerSteps) {
+        this.range = range;
+        spacings = createAxis(minSpacing, maxSpacing, spacingSteps);
+        gravities = createAxis(minGravity, maxGravity, gravitySteps);
+        jumpPowers = createAxis(minJumpPower, maxJumpPower, jumpPowerSteps);
+        reaches = new float[spacingSteps * gravitySteps * jumpPowerSteps];
+        difficulties = new float[reaches.length];
+    }
+    
+    /**
+     * @return A map over the range of every stage setting in the menu, with
+     * {@code steps} samples along each.
+     */
+    public static DifficultyHeatmap createStageSettingsMap(float range, int steps) {
+        return new DifficultyHeatmap(range, GameState.MIN_PLATFORM_SPACING, GameState.MAX_PLATFORM_SPACING, steps, GameState.MIN_GRAVITY, GameState.MAX_GRAVITY, steps, GameState.MIN_JUMP_POWER, GameState.MAX_JUMP_POWER, steps);
+    }
+    
+    private static float[] createAxis(float min, float max, int steps) {
+        float[] axis = new float[steps];
+        for (int i = 0; i < steps; i++) {
+            axis[i] = steps == 1 ? min : min + (max - min) * i / (steps - 1);
+        }
+        return axis;
+    }
+    
+    public void compute() {
+        long start = TimeUtils.nanoTime();
+        JumpSolver solver = new JumpSolver(gravities[0], jumpPowers[0]);
+        float[] column = new float[spacings.length];
+        float stoppingFactor = solver.getStoppingFactor();
+        for (int g = 0; g < gravities.length; g++) {
+            for (int j = 0; j < jumpPowers.length; j++) {
+                solver.set(gravities[g], jumpPowers[j]);
+                solver.getReach(spacings, column, spacings.length);
+                for (int s = 0; s < spacings.length; s++) {
+                    int index = getIndex(s, g, j);
+                    reaches[index] = column[s];
+                    difficulties[index] = JumpSolver.getDifficulty(column[s], stoppingFactor, range);
+                }
+            }
+        }
+        computeNanos = TimeUtils.nanoTime() - start;
+    }
+    
+    public int getIndex(int spacing, int gravity, int jumpPower) {
+        return (spacing * gravities.length + gravity) * jumpPowers.length + jumpPower;
+    }
+    
+    /**
+     * @return Difficulty between 0 and 1, where 1 means the next row can never
+     * be reached.
+     */
+    public float getDifficulty(int spacing, int gravity, int jumpPower) {
+        return difficulties[getIndex(spacing, gravity, jumpPower)];
+    }
+    
+    /**
+     * @return The reach of a jump to the next row, or -1 if it cannot be
+     * reached.
+     */
+    public float getReach(int spacing, int gravity, int jumpPower) {
+        return reaches[getIndex(spacing, gravity, jumpPower)];
+    }
+    
+    /**
+     * Writes one line per cell with its settings, reach and difficulty.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("spacing,gravity,jump_power,reach,difficulty\n");
+        for (int s = 0; s < spacings.length; s++) {
+            for (int g = 0; g < gravities.length; g++) {
+                for (int j = 0; j < jumpPowers.length; j++) {
+                    writer.write(Float.toString(spacings[s]));
+                    writer.write(',');
+                    writer.write(Float.toString(gravities[g]));
+                    writer.write(',');
+                    writer.write(Float.toString(jumpPowers[j]));
+                    writer.write(',');
+                    writer.write(Float.toString(getReach(s, g, j)));
+                    writer.write(',');
+                    writer.write(Float.toString(getDifficulty(s, g, j)));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+    
+    public void writeCsv(FileHandle file) {
+        Writer writer = file.writer(false, "UTF-8");
+        try {
+            writeCsv(writer);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing heatmap: " + file, e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+    
+    /**
+     * Draws one tile per spacing, left to right and top to bottom, with gravity
+     * along x and jump power up y. Cells go from green for easy to red for
+     * hard and are dark where the next row cannot be reached. The caller
+     * disposes the pixmap.
+     */
+    public Pixmap toPixmap() {
+        int columns = (int) Math.ceil(Math.sqrt(spacings.length));
+        int rows = (spacings.length + columns - 1) / columns;
+        int tileWidth = gravities.length + 1;
+        int tileHeight = jumpPowers.length + 1;
+        Pixmap pixmap = new Pixmap(columns * tileWidth, rows * tileHeight, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.BLACK);
+        pixmap.fill();
+        
+        Color color = new Color();
+        for (int s = 0; s < spacings.length; s++) {
+            int left = (s % columns) * tileWidth;
+            int bottom = (s / columns) * tileHeight + jumpPowers.length - 1;
+            for (int g = 0; g < gravities.length; g++) {
+                for (int j = 0; j < jumpPowers.length; j++) {
+                    if (getReach(s, g, j) < 0.0f) {
+                        color.set(IMPOSSIBLE_COLOR);
+                    } else {
+                        color.set(Color.GREEN).lerp(Color.RED, getDifficulty(s, g, j));
+                    }
+                    pixmap.drawPixel(left + g, bottom - j, Color.rgba8888(color));
+                }
+            }
+        }
+        return pixmap;
+    }
+
+    public float getRange() {
+        return range;
+    }
+
+    public float getSpacing(int index) {
+        return spacings[index];
+    }
+
+    public float getGravity(int index) {
+        return gravities[index];
+    }
+
+    public float getJumpPower(int index) {
+        return jumpPowers[index];
+    }
+
+    public int getSpacingSteps() {
+        return spacings.length;
+    }
+
+    public int getGravitySteps() {
+        return gravities.length;
+    }
+
+    public int getJumpPowerSteps() {
+        return jumpPowers.length;
+    }
+
+    /**
+     * @return Nanoseconds the last {@link #compute()} took.
+     */
+    public long getComputeNanos() {
+        return computeNanos;
+    }
+}
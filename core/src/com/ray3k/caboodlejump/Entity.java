@@ -23,14 +23,15 @@
  */
 package com.ray3k.caboodlejump;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 public abstract class Entity {
     private static final Vector2 temp = new Vector2();
     private final Vector2 position;
+    private final Vector2 previousPosition;
     private final Vector2 speed;
     private final Vector2 offset;
     private final Vector2 scale;
@@ -42,11 +43,27 @@ public abstract class Entity {
     private final Vector2 gravity;
     private int depth;
     private final Rectangle collisionBox;
+    private final Rectangle bounds;
+    private boolean boundsSet;
     private final Vector2 collisionBoxPosition;
     private boolean checkingCollisions;
+    private int collisionLayer;
+    private int collisionMask;
+    boolean inBroadphase;
+    int cellMinX;
+    int cellMinY;
+    int cellMaxX;
+    int cellMaxY;
+    int queryStamp;
+    int id;
+    MotionStore motion;
+    int motionIndex;
+    private Array<Runnable> deferred;
+    boolean prepared;
 
     public Entity(EntityManager manager, Core core) {
         position = new Vector2();
+        previousPosition = new Vector2();
         speed = new Vector2();
         offset = new Vector2();
         scale = new Vector2();
@@ -58,24 +75,38 @@ public abstract class Entity {
         depth = 0;
         destroyed = false;
         this.manager = manager;
-        manager.addEntity(this);
         this.core = core;
         collisionBox = new Rectangle();
+        bounds = new Rectangle();
+        boundsSet = false;
         collisionBoxPosition = new Vector2();
         collisionBoxPosition.x = 0;
         collisionBoxPosition.y = 0;
         checkingCollisions = false;
+        collisionLayer = 1;
+        collisionMask = -1;
+        motionIndex = -1;
+        manager.addEntity(this);
         
         create();
     }
     
     public abstract void create();
     
+    /**
+     * Updates state owned only by this entity, such as its skeleton pose,
+     * before {@link #act(float)}. In parallel mode this runs on a worker thread
+     * alongside other entities, so anything that touches shared game state
+     * must go through {@link #defer(Runnable)}.
+     */
+    public void prepare(float delta) {
+    }
+    
     public abstract void act(float delta);
     
     public abstract void act_end(float delta);
     
-    public abstract void draw(SpriteBatch spriteBatch, float delta);
+    public abstract void draw(RenderCommandBuffer buffer, float delta);
     
     public abstract void destroy();
     
@@ -87,21 +118,159 @@ public abstract class Entity {
             destroy();
         }
     }
+    
+    /**
+     * Runs {@code action} now, or, while the manager is updating entities in
+     * parallel, just before this entity's {@link #act(float)}. Deferred actions
+     * run in entity order so results do not depend on thread scheduling.
+     */
+    public void defer(Runnable action) {
+        if (manager.isUpdatingInParallel()) {
+            if (deferred == null) {
+                deferred = new Array<Runnable>();
+            }
+            deferred.add(action);
+        } else {
+            action.run();
+        }
+    }
+    
+    void runDeferred() {
+        if (deferred != null) {
+            for (int i = 0; i < deferred.size; i++) {
+                deferred.get(i).run();
+            }
+            deferred.clear();
+        }
+    }
+    
+    /**
+     * Called by the {@link EntityManager} once a disposed entity has been
+     * dropped from its list. Pooled entities return themselves to their pool
+     * here.
+     */
+    public void removed() {
+    }
+    
+    /**
+     * Copies any extra render state, such as a skeleton pose, into the snapshot
+     * drawn by the render thread when the simulation runs on its own thread.
+     * Called on the simulation thread after the common fields have been set.
+     */
+    public void capture(EntitySnapshot snapshot) {
+    }
+    
+    /**
+     * Draws this entity from a snapshot on the render thread. Implementations
+     * must only read from the snapshot and from state owned by the render
+     * thread.
+     */
+    public void drawSnapshot(RenderCommandBuffer buffer, EntitySnapshot snapshot, float alpha) {
+        TextureRegion region = snapshot.getTextureRegion();
+        if (region != null) {
+            buffer.draw(region, snapshot.getX(alpha), snapshot.getY(alpha), snapshot.getOffsetX(), snapshot.getOffsetY(), region.getRegionWidth(), region.getRegionHeight(), snapshot.getScaleX(), snapshot.getScaleY(), snapshot.getRotation());
+        }
+    }
+    
+    /**
+     * Returns a disposed entity to its manager so it can be reused.
+     */
+    public void revive() {
+        if (destroyed) {
+            destroyed = false;
+            manager.addEntity(this);
+            if (checkingCollisions) {
+                manager.getBroadphase().insert(this);
+            }
+        }
+    }
+
+    /**
+     * Moves this entity's motion into a slot of {@code store}. While attached,
+     * the accessors below read and write the store instead of the local
+     * vectors.
+     */
+    void attachMotion(MotionStore store) {
+        int index = store.allocate(this);
+        store.x[index] = position.x;
+        store.y[index] = position.y;
+        store.previousX[index] = previousPosition.x;
+        store.previousY[index] = previousPosition.y;
+        store.xSpeed[index] = speed.x;
+        store.ySpeed[index] = speed.y;
+        store.gravityX[index] = gravity.x;
+        store.gravityY[index] = gravity.y;
+        store.collisionBoxX[index] = collisionBoxPosition.x;
+        store.collisionBoxY[index] = collisionBoxPosition.y;
+        motion = store;
+        motionIndex = index;
+    }
+    
+    /**
+     * Copies this entity's motion back out of its store and releases the
+     * slot, so that a pooled entity keeps its values while it is not managed.
+     */
+    void detachMotion() {
+        if (motion != null) {
+            int index = motionIndex;
+            position.set(motion.x[index], motion.y[index]);
+            previousPosition.set(motion.previousX[index], motion.previousY[index]);
+            speed.set(motion.xSpeed[index], motion.ySpeed[index]);
+            gravity.set(motion.gravityX[index], motion.gravityY[index]);
+            collisionBoxPosition.set(motion.collisionBoxX[index], motion.collisionBoxY[index]);
+            motion.free(index);
+            motion = null;
+            motionIndex = -1;
+        }
+    }
 
     public Vector2 getPosition() {
-        return position.cpy();
+        return new Vector2(getX(), getY());
     }
     
     public float getX() {
+        if (motion != null) {
+            return motion.x[motionIndex];
+        }
         return position.x;
     }
     
     public float getY() {
+        if (motion != null) {
+            return motion.y[motionIndex];
+        }
         return position.y;
     }
     
+    public float getPreviousX() {
+        if (motion != null) {
+            return motion.previousX[motionIndex];
+        }
+        return previousPosition.x;
+    }
+    
+    public float getPreviousY() {
+        if (motion != null) {
+            return motion.previousY[motionIndex];
+        }
+        return previousPosition.y;
+    }
+    
+    /**
+     * Remembers the current position as the start of the tick. Called by the
+     * {@link EntityManager} before integrating motion.
+     */
+    void storePreviousPosition() {
+        if (motion != null) {
+            motion.previousX[motionIndex] = motion.x[motionIndex];
+            motion.previousY[motionIndex] = motion.y[motionIndex];
+        } else {
+            previousPosition.set(position);
+        }
+    }
+    
     public void setPosition(Vector2 position) {
-        this.position.set(position);
+        setPosition(position.x, position.y);
     }
     
     public void setPosition(float x, float y) {
@@ -110,66 +279,96 @@ public abstract class Entity {
     }
     
     public void setX(float x) {
-        this.position.x = x;
+        if (motion != null) {
+            motion.x[motionIndex] = x;
+            motion.dirty[motionIndex] = true;
+        } else {
+            this.position.x = x;
+        }
     }
     
     public void setY(float y) {
-        this.position.y = y;
+        if (motion != null) {
+            motion.y[motionIndex] = y;
+            motion.dirty[motionIndex] = true;
+        } else {
+            this.position.y = y;
+        }
     }
     
     public void addX(float x) {
-        this.position.x += x;
+        setX(getX() + x);
     }
     
     public void addY(float y) {
-        this.position.y += y;
+        setY(getY() + y);
     }
 
     public float getSpeed() {
-        return speed.len();
+        return (float) Math.sqrt(getXspeed() * getXspeed() + getYspeed() * getYspeed());
     }
     
     public float getXspeed() {
+        if (motion != null) {
+            return motion.xSpeed[motionIndex];
+        }
         return speed.x;
     }
     
     public float getYspeed() {
+        if (motion != null) {
+            return motion.ySpeed[motionIndex];
+        }
         return speed.y;
     }
     
     public void setSpeed(Vector2 speed) {
-        this.speed.set(speed);
+        setXspeed(speed.x);
+        setYspeed(speed.y);
     }
     
     public void setXspeed(float x) {
-        this.speed.x = x;
+        if (motion != null) {
+            motion.xSpeed[motionIndex] = x;
+            motion.dirty[motionIndex] = true;
+        } else {
+            this.speed.x = x;
+        }
     }
     
     public void setYspeed(float y) {
-        this.speed.y = y;
+        if (motion != null) {
+            motion.ySpeed[motionIndex] = y;
+            motion.dirty[motionIndex] = true;
+        } else {
+            this.speed.y = y;
+        }
     }
     
     public void addXspeed(float x) {
-        this.speed.x += x;
+        setXspeed(getXspeed() + x);
     }
     
     public void addYspeed(float y) {
-        this.speed.y += y;
+        setYspeed(getYspeed() + y);
     }
     
     public void setMotion(float speed, float direction) {
-        this.speed.set(speed, 0);
-        this.speed.rotate(direction);
+        temp.set(speed, 0);
+        temp.rotate(direction);
+        setXspeed(temp.x);
+        setYspeed(temp.y);
     }
     
     public void addMotion(float speed, float direction) {
         temp.set(speed, 0);
         temp.rotate(direction);
-        this.speed.add(temp);
+        addXspeed(temp.x);
+        addYspeed(temp.y);
     }
     
     public float getDirection() {
-        return this.speed.angle();
+        return temp.set(getXspeed(), getYspeed()).angle();
     }
 
     public float getRotation() {
@@ -245,28 +444,46 @@ public abstract class Entity {
     }
     
     public void setGravityX(float gravityX) {
-        gravity.x = gravityX;
+        if (motion != null) {
+            motion.gravityX[motionIndex] = gravityX;
+            motion.dirty[motionIndex] = true;
+        } else {
+            gravity.x = gravityX;
+        }
     }
     
     public void setGravityY(float gravityY) {
-        gravity.y = gravityY;
+        if (motion != null) {
+            motion.gravityY[motionIndex] = gravityY;
+            motion.dirty[motionIndex] = true;
+        } else {
+            gravity.y = gravityY;
+        }
     }
     
     public void setGravity(float speed, float direction) {
-        gravity.set(speed, 0);
-        gravity.rotate(direction);
+        temp.set(speed, 0);
+        temp.rotate(direction);
+        setGravityX(temp.x);
+        setGravityY(temp.y);
     }
     
     public float getGravityX() {
+        if (motion != null) {
+            return motion.gravityX[motionIndex];
+        }
         return gravity.x;
     }
     
     public float getGravityY() {
+        if (motion != null) {
+            return motion.gravityY[motionIndex];
+        }
         return gravity.y;
     }
     
     public Vector2 getGravity() {
-        return gravity.cpy();
+        return new Vector2(getGravityX(), getGravityY());
     }
 
     public int getDepth() {
@@ -274,7 +491,32 @@ public abstract class Entity {
     }
 
     public void setDepth(int depth) {
-        this.depth = depth;
+        if (this.depth != depth) {
+            int oldDepth = this.depth;
+            this.depth = depth;
+            manager.depthChanged(this, oldDepth);
+        }
+    }
+
+    /**
+     * The world space area this entity draws into, used to cull it when off
+     * screen. Entities that never set bounds are always drawn.
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+    
+    public boolean hasBounds() {
+        return boundsSet;
+    }
+    
+    public void setBounds(float x, float y, float width, float height) {
+        bounds.set(x, y, width, height);
+        boundsSet = true;
+    }
+    
+    public void clearBounds() {
+        boundsSet = false;
     }
 
     public Rectangle getCollisionBox() {
@@ -287,21 +529,56 @@ public abstract class Entity {
 
     public void setCheckingCollisions(boolean checkingCollisions) {
         this.checkingCollisions = checkingCollisions;
+        if (checkingCollisions) {
+            manager.getBroadphase().insert(this);
+        } else {
+            manager.getBroadphase().remove(this);
+        }
+    }
+
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    public void setCollisionLayer(int collisionLayer) {
+        this.collisionLayer = collisionLayer;
+    }
+
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    public void setCollisionMask(int collisionMask) {
+        this.collisionMask = collisionMask;
     }
 
     public void setCollisionBoxX(float collisionBoxX) {
-        collisionBoxPosition.x = collisionBoxX;
+        if (motion != null) {
+            motion.collisionBoxX[motionIndex] = collisionBoxX;
+        } else {
+            collisionBoxPosition.x = collisionBoxX;
+        }
     }
     
     public void setCollisionBoxY(float collisionBoxY) {
-        collisionBoxPosition.y = collisionBoxY;
+        if (motion != null) {
+            motion.collisionBoxY[motionIndex] = collisionBoxY;
+        } else {
+            collisionBoxPosition.y = collisionBoxY;
+        }
     }
     
     public float getCollisionBoxX() {
+        if (motion != null) {
+            return motion.collisionBoxX[motionIndex];
+        }
         return collisionBoxPosition.x;
     }
     
     public float getCollisionBoxY() {
+        if (motion != null) {
+            return motion.collisionBoxY[motionIndex];
+        }
         return collisionBoxPosition.y;
     }
 }
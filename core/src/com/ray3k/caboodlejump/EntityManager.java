@@ -24,80 +24,478 @@
 
 package com.ray3k.caboodlejump;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
-import java.util.Comparator;
+import com.badlogic.gdx.utils.LongMap;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class EntityManager {
+    /**
+     * The number of entities or motion slots below which a parallel update
+     * task stops splitting and runs on its own.
+     */
+    public static final int PARALLEL_BATCH_SIZE = 256;
     private final Array<Entity> entities;
+    private final Array<Entity> renderOrder;
+    private final SpatialHash broadphase;
+    private final Array<Entity> collisions;
+    private final LongMap<Boolean> reportedPairs;
+    private int nextId;
+    private final MotionStore motionStore;
+    private ForkJoinPool forkJoinPool;
+    private volatile boolean updatingInParallel;
+    private Profiler profiler;
+    private int drawnCount;
+    private int culledCount;
     
     public EntityManager() {
+        this(false);
+    }
+    
+    /**
+     * @param useMotionStore When true entity motion is kept in a
+     * {@link MotionStore} rather than in each entity. Serial ticks predict
+     * every slot in one pass before any entity acts, then publish each
+     * entity's motion in its turn, so ticks play out the same either way.
+     */
+    public EntityManager(boolean useMotionStore) {
+        motionStore = useMotionStore ? new MotionStore() : null;
         entities = new Array<Entity>();
+        renderOrder = new Array<Entity>();
+        broadphase = new SpatialHash();
+        collisions = new Array<Entity>();
+        reportedPairs = new LongMap<Boolean>();
     }
     
     public void addEntity(Entity entity) {
+        entity.id = nextId++;
+        if (motionStore != null) {
+            entity.attachMotion(motionStore);
+        }
         entities.add(entity);
+        insertRenderOrder(entity);
+    }
+    
+    /**
+     * Keeps the render order sorted when an entity's depth changes. Called by
+     * {@link Entity#setDepth(int)}.
+     */
+    void depthChanged(Entity entity, int oldDepth) {
+        if (removeRenderOrder(entity, oldDepth)) {
+            insertRenderOrder(entity);
+        }
+    }
+    
+    /**
+     * Inserts after every entity of the same depth so that entities of equal
+     * depth are drawn in the order they were added.
+     */
+    private void insertRenderOrder(Entity entity) {
+        int depth = entity.getDepth();
+        int low = 0;
+        int high = renderOrder.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (renderOrder.get(middle).getDepth() >= depth) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        renderOrder.insert(low, entity);
+    }
+    
+    private boolean removeRenderOrder(Entity entity, int depth) {
+        int low = 0;
+        int high = renderOrder.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (renderOrder.get(middle).getDepth() > depth) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        
+        for (int i = low; i < renderOrder.size && renderOrder.get(i).getDepth() == depth; i++) {
+            if (renderOrder.get(i) == entity) {
+                renderOrder.removeIndex(i);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Hashes the position and speed of every entity in update order. Two
+     * deterministic runs produce the same value after the same tick.
+     */
+    public int checksum() {
+        int hash = entities.size;
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            hash = 31 * hash + Float.floatToIntBits(entity.getX());
+            hash = 31 * hash + Float.floatToIntBits(entity.getY());
+            hash = 31 * hash + Float.floatToIntBits(entity.getXspeed());
+            hash = 31 * hash + Float.floatToIntBits(entity.getYspeed());
+        }
+        return hash;
     }
     
     public Array<Entity> getEntities() {
         return new Array<Entity>(entities);
     }
+
+    /**
+     * @return The store holding entity motion, or null if this manager keeps
+     * motion in the entities themselves.
+     */
+    public MotionStore getMotionStore() {
+        return motionStore;
+    }
+
+    public SpatialHash getBroadphase() {
+        return broadphase;
+    }
     
+    /**
+     * Fills {@code results} with the colliding entities whose layer matches
+     * {@code mask} and whose collision box overlaps {@code area}. Nothing is
+     * copied or allocated once {@code results} has grown to size.
+     */
+    public Array<Entity> query(Rectangle area, int mask, Array<Entity> results) {
+        broadphase.query(area, mask, results);
+        return results;
+    }
+    
+    /**
+     * Updates every entity for one tick. Without a fork/join pool each entity
+     * is integrated, prepared and acted in turn. With one, integration,
+     * collision box refresh and {@link Entity#prepare(float)} run in parallel
+     * for every entity first, and the rest of the tick, including any deferred
+     * actions, runs serially in entity order. Entities then see each other's
+     * positions as of the end of integration rather than as of their own
+     * turn, so the two modes are each deterministic but differ from one
+     * another. Recordings store the mode they were made in.
+     * <p>
+     * Each overlapping pair is reported once per tick, when the first of the
+     * two entities to act finds the other. Both entities are told about the
+     * collision then, each only if its mask matches the other's layer.
+     */
     public void act(float delta) {
+        boolean profiling = profiler != null && profiler.isEnabled();
+        reportedPairs.clear();
+        if (forkJoinPool != null) {
+            if (motionStore != null) {
+                if (profiling) {
+                    profiler.begin(Profiler.TICK_INTEGRATE);
+                }
+                forkJoinPool.invoke(new IntegrateTask(motionStore, delta, 0, motionStore.size()));
+                if (profiling) {
+                    profiler.end(Profiler.TICK_INTEGRATE);
+                }
+            }
+            
+            if (profiling) {
+                profiler.begin(Profiler.TICK_PREPARE);
+            }
+            updatingInParallel = true;
+            try {
+                forkJoinPool.invoke(new UpdateTask(this, entities, delta, motionStore == null, 0, entities.size));
+            } finally {
+                updatingInParallel = false;
+            }
+            if (profiling) {
+                profiler.end(Profiler.TICK_PREPARE);
+            }
+        } else if (motionStore != null) {
+            if (profiling) {
+                profiler.begin(Profiler.TICK_INTEGRATE);
+            }
+            motionStore.predict(delta);
+            if (profiling) {
+                profiler.end(Profiler.TICK_INTEGRATE);
+            }
+        }
+        
+        if (profiling) {
+            profiler.begin(Profiler.TICK_ENTITIES);
+        }
         Iterator<Entity> iter = entities.iterator();
         while (iter.hasNext()) {
             Entity entity = iter.next();
+            long start = profiling ? System.nanoTime() : 0L;
+            boolean prepared = entity.prepared;
+            entity.prepared = false;
+            entity.runDeferred();
             if (!entity.isDestroyed()) {
-                entity.addXspeed(entity.getGravityX() * delta);
-                entity.addYspeed(entity.getGravityY() * delta);
-                
-                entity.addX(entity.getXspeed() * delta);
-                entity.addY(entity.getYspeed() * delta);
+                if (!prepared) {
+                    update(entity, delta);
+                }
                 
-                entity.getCollisionBox().setPosition(entity.getX() + entity.getCollisionBoxX(), entity.getY() + entity.getCollisionBoxY());
                 entity.act(delta);
                 
-                for (int i = 0; i < entities.size ; i++) {
-                    if (!entity.isDestroyed() && entity.isCheckingCollisions()) {
-                        Entity other = entities.get(i);
-                        if (other.isCheckingCollisions()) {
-                            if (entity.getCollisionBox().overlaps(other.getCollisionBox())) {
-                                entity.collision(other);
-                            }
+                if (!entity.isDestroyed() && entity.isCheckingCollisions()) {
+                    broadphase.update(entity);
+                    if (entity.getCollisionMask() != 0) {
+                        broadphase.query(entity, collisions);
+                        for (int i = 0; i < collisions.size && !entity.isDestroyed(); i++) {
+                            dispatchCollision(entity, collisions.get(i));
                         }
-                    } else {
-                        break;
+                        collisions.clear();
                     }
                 }
+                
+                if (profiling) {
+                    profiler.add(profiler.getEntityZone(entity.getClass()), System.nanoTime() - start);
+                }
             } else {
+                broadphase.remove(entity);
+                removeRenderOrder(entity, entity.getDepth());
                 iter.remove();
+                entity.detachMotion();
+                entity.removed();
             }
         }
         
+        if (profiling) {
+            profiler.end(Profiler.TICK_ENTITIES);
+            profiler.begin(Profiler.TICK_ACT_END);
+        }
+        
         iter = entities.iterator();
         while (iter.hasNext()) {
             Entity entity = iter.next();
             
             entity.act_end(delta);
         }
+        
+        if (profiling) {
+            profiler.end(Profiler.TICK_ACT_END);
+        }
     }
     
-    public void draw(SpriteBatch spriteBatch, float delta) {
-        entities.sort(new Comparator<Entity>() {
-            @Override
-            public int compare(Entity o1, Entity o2) {
-                return o2.getDepth() - o1.getDepth();
+    /**
+     * Reports a pair found by {@code entity}'s query unless it was already
+     * reported this tick. If {@code other} would also find {@code entity} its
+     * callback runs now and the pair is remembered, so its own query later in
+     * the tick skips it.
+     */
+    private void dispatchCollision(Entity entity, Entity other) {
+        boolean mutual = other.isCheckingCollisions() && (other.getCollisionMask() & entity.getCollisionLayer()) != 0;
+        if (mutual) {
+            long pair = entity.id < other.id ? (long) entity.id << 32 | (other.id & 0xffffffffL) : (long) other.id << 32 | (entity.id & 0xffffffffL);
+            if (reportedPairs.containsKey(pair)) {
+                return;
             }
-        });
+            reportedPairs.put(pair, Boolean.TRUE);
+        }
         
-        for (Entity entity : entities) {
+        entity.collision(other);
+        if (mutual && !other.isDestroyed() && !entity.isDestroyed()) {
+            other.collision(entity);
+        }
+    }
+    
+    /**
+     * The part of an entity's tick that only touches the entity itself and may
+     * run on any thread.
+     */
+    private void update(Entity entity, float delta) {
+        integrate(entity, delta);
+        entity.prepare(delta);
+    }
+    
+    /**
+     * Applies gravity and speed to one entity and moves its collision box.
+     */
+    private void integrate(Entity entity, float delta) {
+        if (motionStore != null) {
+            motionStore.commit(entity.motionIndex, delta);
+        } else {
+            entity.storePreviousPosition();
+            entity.addXspeed(entity.getGravityX() * delta);
+            entity.addYspeed(entity.getGravityY() * delta);
+
+            entity.addX(entity.getXspeed() * delta);
+            entity.addY(entity.getYspeed() * delta);
+            
+            entity.getCollisionBox().setPosition(entity.getX() + entity.getCollisionBoxX(), entity.getY() + entity.getCollisionBoxY());
+        }
+    }
+    
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Times the phases of {@link #act(float)} and each entity class while
+     * {@code profiler} is enabled. May be null.
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+    
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+    
+    /**
+     * Updates entities in parallel on {@code forkJoinPool}, or serially if it
+     * is null.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+    
+    /**
+     * @return True while entities are being prepared on worker threads.
+     */
+    public boolean isUpdatingInParallel() {
+        return updatingInParallel;
+    }
+    
+    public void draw(RenderCommandBuffer buffer, float alpha) {
+        draw(buffer, alpha, null);
+    }
+    
+    /**
+     * Draws every live entity whose bounds overlap {@code view}. Entities
+     * without bounds are always drawn. Pass null to draw everything. Commands
+     * are tagged with each entity's depth. Texture regions are drawn between
+     * the previous and current tick positions by {@code alpha}.
+     */
+    public void draw(RenderCommandBuffer buffer, float alpha, Rectangle view) {
+        drawnCount = 0;
+        culledCount = 0;
+        for (int i = 0; i < renderOrder.size; i++) {
+            Entity entity = renderOrder.get(i);
             if (!entity.isDestroyed()) {
+                if (view != null && entity.hasBounds() && !view.overlaps(entity.getBounds())) {
+                    culledCount++;
+                    continue;
+                }
+                
+                buffer.setDepth(entity.getDepth());
                 if (entity.getTextureRegion() != null) {
-                    spriteBatch.draw(entity.getTextureRegion(), entity.getX() + entity.getXspeed() * delta, entity.getY() + entity.getYspeed() * delta, entity.getOffsetX(), entity.getOffsetY(), entity.getTextureRegion().getRegionWidth(), entity.getTextureRegion().getRegionHeight(), entity.getScaleX(), entity.getScaleY(), entity.getRotation());
+                    buffer.draw(entity.getTextureRegion(), MathUtils.lerp(entity.getPreviousX(), entity.getX(), alpha), MathUtils.lerp(entity.getPreviousY(), entity.getY(), alpha), entity.getOffsetX(), entity.getOffsetY(), entity.getTextureRegion().getRegionWidth(), entity.getTextureRegion().getRegionHeight(), entity.getScaleX(), entity.getScaleY(), entity.getRotation());
                 }
                 
-                entity.draw(spriteBatch, delta);
+                entity.draw(buffer, alpha);
+                drawnCount++;
+            }
+        }
+    }
+    
+    /**
+     * Records every live entity into a snapshot in draw order.
+     */
+    public void capture(RenderSnapshot snapshot) {
+        for (int i = 0; i < renderOrder.size; i++) {
+            Entity entity = renderOrder.get(i);
+            if (!entity.isDestroyed()) {
+                entity.capture(snapshot.add(entity));
+            }
+        }
+    }
+    
+    public void drawSnapshot(RenderCommandBuffer buffer, RenderSnapshot snapshot, float alpha, Rectangle view) {
+        drawnCount = 0;
+        culledCount = 0;
+        Array<EntitySnapshot> entries = snapshot.getEntries();
+        for (int i = 0; i < entries.size; i++) {
+            EntitySnapshot entry = entries.get(i);
+            if (view != null && !entry.isVisible(view, alpha)) {
+                culledCount++;
+            } else {
+                buffer.setDepth(entry.getDepth());
+                entry.getEntity().drawSnapshot(buffer, entry, alpha);
+                drawnCount++;
+            }
+        }
+    }
+
+    /**
+     * @return The number of entities drawn by the last draw call.
+     */
+    public int getDrawnCount() {
+        return drawnCount;
+    }
+
+    /**
+     * @return The number of entities skipped as off screen by the last draw
+     * call.
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+    
+    private static class UpdateTask extends RecursiveAction {
+        private final EntityManager manager;
+        private final Array<Entity> entities;
+        private final float delta;
+        private final boolean integrate;
+        private final int start;
+        private final int end;
+
+        /**
+         * @param integrate False when the entities' motion store has already
+         * been integrated for this tick, so only {@link Entity#prepare(float)}
+         * runs.
+         */
+        public UpdateTask(EntityManager manager, Array<Entity> entities, float delta, boolean integrate, int start, int end) {
+            this.manager = manager;
+            this.entities = entities;
+            this.delta = delta;
+            this.integrate = integrate;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= PARALLEL_BATCH_SIZE) {
+                for (int i = start; i < end; i++) {
+                    Entity entity = entities.get(i);
+                    if (!entity.isDestroyed()) {
+                        if (integrate) {
+                            manager.update(entity, delta);
+                        } else {
+                            entity.prepare(delta);
+                        }
+                        entity.prepared = true;
+                    }
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new UpdateTask(manager, entities, delta, integrate, start, middle), new UpdateTask(manager, entities, delta, integrate, middle, end));
+            }
+        }
+    }
+    
+    private static class IntegrateTask extends RecursiveAction {
+        private final MotionStore motionStore;
+        private final float delta;
+        private final int start;
+        private final int end;
+
+        public IntegrateTask(MotionStore motionStore, float delta, int start, int end) {
+            this.motionStore = motionStore;
+            this.delta = delta;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= PARALLEL_BATCH_SIZE) {
+                motionStore.integrate(delta, start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new IntegrateTask(motionStore, delta, start, middle), new IntegrateTask(motionStore, delta, middle, end));
             }
         }
     }
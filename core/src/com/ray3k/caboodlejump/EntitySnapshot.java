@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Render state of one entity at the end of a simulation tick, along with its
+ * position at the start of that tick for interpolation.
+ */
+public class EntitySnapshot {
+    private Entity entity;
+    private float x;
+    private float y;
+    private float previousX;
+    private float previousY;
+    private TextureRegion textureRegion;
+    private float offsetX;
+    private float offsetY;
+    private float scaleX;
+    private float scaleY;
+    private float rotation;
+    private int depth;
+    private boolean boundsSet;
+    private float boundsX;
+    private float boundsY;
+    private float boundsWidth;
+    private float boundsHeight;
+    private BakedAnimation animation;
+    private int frame;
+    private SkeletonPose pose;
+    
+    public void set(Entity entity) {
+        this.entity = entity;
+        x = entity.getX();
+        y = entity.getY();
+        previousX = entity.getPreviousX();
+        previousY = entity.getPreviousY();
+        textureRegion = entity.getTextureRegion();
+        offsetX = entity.getOffsetX();
+        offsetY = entity.getOffsetY();
+        scaleX = entity.getScaleX();
+        scaleY = entity.getScaleY();
+        rotation = entity.getRotation();
+        depth = entity.getDepth();
+        boundsSet = entity.hasBounds();
+        if (boundsSet) {
+            boundsX = entity.getBounds().x;
+            boundsY = entity.getBounds().y;
+            boundsWidth = entity.getBounds().width;
+            boundsHeight = entity.getBounds().height;
+        }
+    }
+    
+    /**
+     * Tests the entity's bounds, moved to its interpolated position, against
+     * a view rectangle. Entities without bounds are always visible.
+     */
+    public boolean isVisible(Rectangle view, float alpha) {
+        if (!boundsSet) {
+            return true;
+        }
+        float left = boundsX + getX(alpha) - x;
+        float bottom = boundsY + getY(alpha) - y;
+        return left < view.x + view.width && left + boundsWidth > view.x && bottom < view.y + view.height && bottom + boundsHeight > view.y;
+    }
+    
+    public void clear() {
+        entity = null;
+        textureRegion = null;
+        animation = null;
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getPreviousX() {
+        return previousX;
+    }
+
+    public float getPreviousY() {
+        return previousY;
+    }
+    
+    public float getX(float alpha) {
+        return MathUtils.lerp(previousX, x, alpha);
+    }
+    
+    public float getY(float alpha) {
+        return MathUtils.lerp(previousY, y, alpha);
+    }
+
+    public TextureRegion getTextureRegion() {
+        return textureRegion;
+    }
+
+    public float getOffsetX() {
+        return offsetX;
+    }
+
+    public float getOffsetY() {
+        return offsetY;
+    }
+
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+    
+    public SkeletonPose getPose() {
+        if (pose == null) {
+            pose = new SkeletonPose();
+        }
+        return pose;
+    }
+
+    /**
+     * @return The baked animation to draw, set by entities that play one.
+     */
+    public BakedAnimation getAnimation() {
+        return animation;
+    }
+
+    public void setAnimation(BakedAnimation animation) {
+        this.animation = animation;
+    }
+
+    /**
+     * @return The frame of a baked animation to draw, set by entities that
+     * play one.
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    public void setFrame(int frame) {
+        this.frame = frame;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+/**
+ * Fixed timestep accumulator. Call {@link #advance()} once per frame, run the
+ * returned number of ticks of {@link #getTickDuration()} seconds each and then
+ * draw with {@link #getAlpha()}, the fraction of a tick left over. At most
+ * {@link #getMaxStepsPerFrame()} ticks are run per frame; time beyond that is
+ * dropped instead of being caught up later. A time scale speeds up or slows
+ * down the clock without changing the tick duration.
+ */
+public class GameLoop {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private int tickRate;
+    private long tickNanos;
+    private int maxStepsPerFrame;
+    private long previous;
+    private long frameTime;
+    private long accumulator;
+    private boolean paused;
+    private float alpha;
+    private int ticksThisFrame;
+    private long droppedNanos;
+    private long totalDroppedNanos;
+    private long totalTicks;
+    private float timeScale;
+
+    public GameLoop(int tickRate, int maxStepsPerFrame) {
+        setTickRate(tickRate);
+        this.maxStepsPerFrame = maxStepsPerFrame;
+        timeScale = 1.0f;
+        start();
+    }
+    
+    public void start() {
+        previous = System.nanoTime();
+        accumulator = 0;
+        alpha = 0.0f;
+        paused = false;
+    }
+    
+    /**
+     * Measures the time since the previous call and returns the number of
+     * ticks to run this frame.
+     */
+    public int advance() {
+        long current = System.nanoTime();
+        long elapsed = current - previous;
+        previous = current;
+        frameTime = current;
+        droppedNanos = 0;
+        
+        if (paused) {
+            ticksThisFrame = 0;
+            return 0;
+        }
+        
+        accumulator += timeScale == 1.0f ? elapsed : (long) (elapsed * (double) timeScale);
+        long steps = accumulator / tickNanos;
+        if (steps > maxStepsPerFrame) {
+            droppedNanos = (steps - maxStepsPerFrame) * tickNanos;
+            totalDroppedNanos += droppedNanos;
+            accumulator -= droppedNanos;
+            steps = maxStepsPerFrame;
+        }
+        accumulator -= steps * tickNanos;
+        
+        alpha = accumulator / (float) tickNanos;
+        ticksThisFrame = (int) steps;
+        totalTicks += steps;
+        return ticksThisFrame;
+    }
+    
+    /**
+     * @return The {@link System#nanoTime()} at which the tick at index
+     * {@code step} of this frame's ticks ends in real time, before any time
+     * scale. Input that arrived by then belongs to that tick.
+     */
+    public long getTickTime(int step) {
+        long ahead = accumulator + (ticksThisFrame - 1 - step) * tickNanos;
+        return frameTime - (timeScale == 1.0f ? ahead : (long) (ahead / (double) timeScale));
+    }
+    
+    public void pause() {
+        paused = true;
+    }
+    
+    public void resume() {
+        if (paused) {
+            paused = false;
+            previous = System.nanoTime();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public void setTickRate(int tickRate) {
+        this.tickRate = tickRate;
+        tickNanos = NANOS_PER_SECOND / tickRate;
+    }
+    
+    public float getTickDuration() {
+        return tickNanos / (float) NANOS_PER_SECOND;
+    }
+    
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Runs ticks {@code timeScale} times as often as real time. Speed ups are
+     * still limited by {@link #getMaxStepsPerFrame()}.
+     */
+    public void setTimeScale(float timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    public float getAlpha() {
+        return alpha;
+    }
+
+    public int getTicksThisFrame() {
+        return ticksThisFrame;
+    }
+
+    public long getDroppedNanos() {
+        return droppedNanos;
+    }
+
+    public long getTotalDroppedNanos() {
+        return totalDroppedNanos;
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+}
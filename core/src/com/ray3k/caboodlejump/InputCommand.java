@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+/**
+ * The controls of one simulation tick, built by {@link InputManager} from the
+ * key events that arrived before the tick. Uses the
+ * {@link InputRecording#UP}, {@link InputRecording#LEFT} and
+ * {@link InputRecording#RIGHT} bits.
+ */
+public class InputCommand {
+    private long tick;
+    private int held;
+    private int pressed;
+    private int eventCount;
+    
+    void set(long tick, int held, int pressed, int eventCount) {
+        this.tick = tick;
+        this.held = held;
+        this.pressed = pressed;
+        this.eventCount = eventCount;
+    }
+    
+    /**
+     * @return True if the key was held at the end of the tick or pressed at any
+     * point during it, so taps shorter than a tick are not lost.
+     */
+    public boolean isDown(int bit) {
+        return ((held | pressed) & bit) != 0;
+    }
+    
+    /**
+     * @return True if the key went down during this tick.
+     */
+    public boolean isPressed(int bit) {
+        return (pressed & bit) != 0;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The bits of the keys held at the end of the tick.
+     */
+    public int getHeld() {
+        return held;
+    }
+
+    /**
+     * @return The bits of the keys that went down during the tick.
+     */
+    public int getPressed() {
+        return pressed;
+    }
+
+    /**
+     * @return Number of key events assigned to this tick.
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+}
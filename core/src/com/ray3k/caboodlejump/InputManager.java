@@ -23,14 +23,61 @@
  */
 package com.ray3k.caboodlejump;
 
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntIntMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class InputManager implements InputProcessor {
+/**
+ * Receives key events from the backend and hands them to the simulation one
+ * tick at a time. Key listeners are still called straight away on the input
+ * thread, for things like hotkeys.
+ * <p>
+ * Bound keys are also timestamped and written to a single producer, single
+ * consumer ring without locks, so the input thread never waits for the
+ * simulation thread. Before every tick {@link #beginTick(long)} takes the
+ * events that arrived before the tick's end in real time and folds them into
+ * the tick's {@link InputCommand}, which is what the player reads. A jump is
+ * therefore seen by exactly one tick however many ticks run in a frame. The
+ * time from each event to the start of the tick that consumes it is recorded
+ * as the {@link Profiler#INPUT_LATENCY} zone and as a running mean and
+ * standard deviation.
+ * <p>
+ * Events arriving while the ring is full are dropped and counted.
+ */
+public class InputManager implements InputProcessor, PlayerInput {
+    public static final int CAPACITY = 256;
     private final Array<KeyActionListener> flapListeners;
+    private final IntIntMap bindings;
+    private final long[] times;
+    private final int[] events;
+    private final AtomicLong writeCount;
+    private final AtomicLong readCount;
+    private final AtomicLong resetCount;
+    private volatile long droppedEvents;
+    private final InputCommand command;
+    private long tick;
+    private int held;
+    private Profiler profiler;
+    private long latencyCount;
+    private double latencyMean;
+    private double latencySquares;
+    private long maxLatency;
 
     public InputManager() {
         flapListeners = new Array<KeyActionListener>();
+        bindings = new IntIntMap();
+        times = new long[CAPACITY];
+        events = new int[CAPACITY];
+        writeCount = new AtomicLong();
+        readCount = new AtomicLong();
+        resetCount = new AtomicLong(-1L);
+        command = new InputCommand();
+        
+        bind(Keys.UP, InputRecording.UP);
+        bind(Keys.LEFT, InputRecording.LEFT);
+        bind(Keys.RIGHT, InputRecording.RIGHT);
     }
     
     public interface KeyActionListener {
@@ -45,12 +92,167 @@ public class InputManager implements InputProcessor {
         flapListeners.removeValue(listener, true);
     }
     
+    /**
+     * Makes {@code keycode} drive the {@link InputRecording} input bit
+     * {@code bit}.
+     */
+    public void bind(int keycode, int bit) {
+        bindings.put(keycode, bit);
+    }
+    
     public void dispose() {
         flapListeners.clear();
     }
+    
+    private void enqueue(int keycode, boolean down) {
+        int bit = bindings.get(keycode, 0);
+        if (bit == 0) {
+            return;
+        }
+        
+        long write = writeCount.get();
+        if (write - readCount.get() >= CAPACITY) {
+            droppedEvents++;
+            return;
+        }
+        int index = (int) (write & (CAPACITY - 1));
+        times[index] = System.nanoTime();
+        events[index] = down ? bit : -bit;
+        writeCount.lazySet(write + 1);
+    }
+    
+    /**
+     * Forgets every key held so far. Call this when this manager becomes the
+     * input processor again, since key releases sent to another processor in
+     * the meantime never reached the ring. Events already queued are dropped
+     * by the next {@link #beginTick(long)}; later ones are kept. May be called
+     * from any thread.
+     */
+    public void reset() {
+        resetCount.set(writeCount.get());
+    }
+    
+    /**
+     * Builds the command for the next tick from every event that arrived at or
+     * before {@code tickTime}, a {@link System#nanoTime()} value. Later events
+     * are left for later ticks. Must only be called from the thread that runs
+     * the simulation.
+     */
+    public void beginTick(long tickTime) {
+        long now = System.nanoTime();
+        long read = readCount.get();
+        long write = writeCount.get();
+        long reset = resetCount.getAndSet(-1L);
+        if (reset != -1L) {
+            read = Math.max(read, reset);
+            held = 0;
+        }
+        int pressed = 0;
+        int count = 0;
+        while (read < write) {
+            int index = (int) (read & (CAPACITY - 1));
+            long time = times[index];
+            if (time > tickTime) {
+                break;
+            }
+            
+            int event = events[index];
+            if (event > 0) {
+                held |= event;
+                pressed |= event;
+            } else {
+                held &= ~-event;
+            }
+            recordLatency(now - time);
+            count++;
+            read++;
+        }
+        readCount.lazySet(read);
+        
+        command.set(tick++, held, pressed, count);
+    }
+    
+    private void recordLatency(long latency) {
+        latencyCount++;
+        double difference = latency - latencyMean;
+        latencyMean += difference / latencyCount;
+        latencySquares += difference * (latency - latencyMean);
+        maxLatency = Math.max(maxLatency, latency);
+        
+        if (profiler != null) {
+            profiler.add(Profiler.INPUT_LATENCY, latency);
+            profiler.commit(Profiler.INPUT_LATENCY);
+        }
+    }
+    
+    /**
+     * @return The command of the tick being simulated.
+     */
+    public InputCommand getCommand() {
+        return command;
+    }
+
+    @Override
+    public boolean isJumpJustPressed() {
+        return command.isPressed(InputRecording.UP);
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        return command.isDown(InputRecording.LEFT);
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return command.isDown(InputRecording.RIGHT);
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Also records every event's latency in {@code profiler}. May be null.
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * @return Number of events consumed by ticks so far.
+     */
+    public long getLatencyCount() {
+        return latencyCount;
+    }
+
+    /**
+     * @return Mean time in nanoseconds from an event to the tick consuming it.
+     */
+    public long getAverageLatency() {
+        return (long) latencyMean;
+    }
+
+    /**
+     * @return Standard deviation of the latency in nanoseconds.
+     */
+    public long getLatencyJitter() {
+        return latencyCount > 1 ? (long) Math.sqrt(latencySquares / (latencyCount - 1)) : 0L;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return Number of events lost because the ring was full.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
 
     @Override
     public boolean keyDown(int keycode) {
+        enqueue(keycode, true);
         for (KeyActionListener flapListener : flapListeners) {
             flapListener.keyPressed(keycode);
         }
@@ -59,6 +261,7 @@ public class InputManager implements InputProcessor {
 
     @Override
     public boolean keyUp(int keycode) {
+        enqueue(keycode, false);
         return false;
     }
 
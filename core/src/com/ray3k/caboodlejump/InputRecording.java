@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A recorded game: the seed, world size, stage settings and update mode it
+ * started with, the player input read on every tick and a checksum of the
+ * world after every {@link #CHECKSUM_INTERVAL}th tick.
+ * <p>
+ * The file holds a header followed by the input as run length encoded
+ * (bits, varint length) pairs, the checksum interval as a varint and one 32
+ * bit checksum per checkpoint.
+ */
+public class InputRecording {
+    public static final int UP = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 4;
+    /**
+     * The number of ticks between checksums in new recordings. Checkpoints
+     * fall on tick 0 and every multiple of the interval.
+     */
+    public static final int CHECKSUM_INTERVAL = 60;
+    private static final int MAGIC = 0x434a5250;
+    private static final int VERSION = 4;
+    private final long seed;
+    private final String character;
+    private final int width;
+    private final int height;
+    private float platformSpacing;
+    private float gravity;
+    private float jumpPower;
+    private boolean parallelUpdate;
+    private final ByteArray inputs;
+    private final IntArray checksums;
+    private int checksumInterval;
+
+    public InputRecording(long seed, String character, int width, int height) {
+        this.seed = seed;
+        this.character = character;
+        this.width = width;
+        this.height = height;
+        inputs = new ByteArray();
+        checksums = new IntArray();
+        checksumInterval = CHECKSUM_INTERVAL;
+    }
+    
+    /**
+     * Appends a tick that is not a checkpoint.
+     * @param input The {@link #UP}, {@link #LEFT} and {@link #RIGHT} bits read
+     * during the tick.
+     */
+    public void addTick(int input) {
+        if (isCheckpoint(inputs.size)) {
+            throw new GdxRuntimeException("Tick " + inputs.size + " is a checkpoint and needs a checksum.");
+        }
+        inputs.add((byte) input);
+    }
+    
+    /**
+     * Appends a checkpoint tick.
+     * @param input The {@link #UP}, {@link #LEFT} and {@link #RIGHT} bits read
+     * during the tick.
+     * @param checksum The world checksum after the tick.
+     */
+    public void addTick(int input, int checksum) {
+        if (!isCheckpoint(inputs.size)) {
+            throw new GdxRuntimeException("Tick " + inputs.size + " is not a checkpoint.");
+        }
+        inputs.add((byte) input);
+        checksums.add(checksum);
+    }
+    
+    public int getTickCount() {
+        return inputs.size;
+    }
+    
+    public int getInput(int tick) {
+        return inputs.get(tick);
+    }
+    
+    /**
+     * @return True if a checksum is kept for {@code tick}.
+     */
+    public boolean isCheckpoint(int tick) {
+        return tick % checksumInterval == 0;
+    }
+    
+    /**
+     * @param tick A checkpoint tick.
+     */
+    public int getChecksum(int tick) {
+        return checksums.get(tick / checksumInterval);
+    }
+
+    public int getChecksumInterval() {
+        return checksumInterval;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getCharacter() {
+        return character;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getPlatformSpacing() {
+        return platformSpacing;
+    }
+
+    public float getGravity() {
+        return gravity;
+    }
+
+    public float getJumpPower() {
+        return jumpPower;
+    }
+    
+    public void setSettings(float platformSpacing, float gravity, float jumpPower) {
+        this.platformSpacing = platformSpacing;
+        this.gravity = gravity;
+        this.jumpPower = jumpPower;
+    }
+    
+    /**
+     * @return True if entities were updated in parallel. Parallel ticks
+     * integrate every entity before any acts, so a replay must use the same
+     * mode to reproduce the game.
+     */
+    public boolean isParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    public void setParallelUpdate(boolean parallelUpdate) {
+        this.parallelUpdate = parallelUpdate;
+    }
+    
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        writeVarInt(output, VERSION);
+        output.writeLong(seed);
+        output.writeUTF(character);
+        writeVarInt(output, width);
+        writeVarInt(output, height);
+        output.writeFloat(platformSpacing);
+        output.writeFloat(gravity);
+        output.writeFloat(jumpPower);
+        output.writeBoolean(parallelUpdate);
+        writeVarInt(output, inputs.size);
+        
+        int runs = 0;
+        for (int i = 0; i < inputs.size; i++) {
+            if (i == 0 || inputs.get(i) != inputs.get(i - 1)) {
+                runs++;
+            }
+        }
+        writeVarInt(output, runs);
+        int start = 0;
+        for (int i = 1; i <= inputs.size; i++) {
+            if (i == inputs.size || inputs.get(i) != inputs.get(start)) {
+                output.writeByte(inputs.get(start));
+                writeVarInt(output, i - start);
+                start = i;
+            }
+        }
+        
+        writeVarInt(output, checksumInterval);
+        for (int i = 0; i < checksums.size; i++) {
+            output.writeInt(checksums.get(i));
+        }
+        output.flush();
+    }
+    
+    public static InputRecording read(InputStream stream) throws IOException {
+        DataInputStream input = new DataInputStream(stream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not an input recording.");
+        }
+        int version = readVarInt(input);
+        if (version != VERSION) {
+            throw new IOException("Unsupported input recording version: " + version);
+        }
+        
+        InputRecording recording = new InputRecording(input.readLong(), input.readUTF(), readVarInt(input), readVarInt(input));
+        recording.setSettings(input.readFloat(), input.readFloat(), input.readFloat());
+        recording.setParallelUpdate(input.readBoolean());
+        int ticks = readVarInt(input);
+        recording.inputs.ensureCapacity(ticks);
+        for (int runs = readVarInt(input); runs > 0; runs--) {
+            byte bits = input.readByte();
+            for (int length = readVarInt(input); length > 0; length--) {
+                recording.inputs.add(bits);
+            }
+        }
+        if (recording.inputs.size != ticks) {
+            throw new IOException("Input recording is corrupt: expected " + ticks + " ticks, found " + recording.inputs.size);
+        }
+        
+        recording.checksumInterval = readVarInt(input);
+        if (recording.checksumInterval <= 0) {
+            throw new IOException("Input recording is corrupt: checksum interval " + recording.checksumInterval);
+        }
+        int checkpoints = (ticks + recording.checksumInterval - 1) / recording.checksumInterval;
+        recording.checksums.ensureCapacity(checkpoints);
+        for (int i = 0; i < checkpoints; i++) {
+            recording.checksums.add(input.readInt());
+        }
+        return recording;
+    }
+    
+    public void save(FileHandle file) {
+        OutputStream stream = file.write(false, 8192);
+        try {
+            write(stream);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing input recording: " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+    
+    public static InputRecording load(FileHandle file) {
+        InputStream stream = file.read(8192);
+        try {
+            return read(stream);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading input recording: " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(stream);
+        }
+    }
+    
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+    
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.ray3k.caboodlejump.entities.PlayerEntity;
+
+/**
+ * Closed form reachability of the player's jump. A jump starts at rest with an
+ * upward speed of the jump power and falls back under gravity, so it lands
+ * at a height {@code h} above the start after
+ * {@code t = (v + sqrt(v^2 - 2gh)) / g}. Heights above the apex
+ * {@code v^2 / 2g} cannot be landed on. Holding a direction accelerates the
+ * player at {@link PlayerEntity#MOVE_SPEED}, so any horizontal offset up to
+ * {@code a t^2 / 2} can be reached. To also stop over the target, the
+ * {@link PlayerEntity#FRICTION} braking has to fit into the jump, which
+ * shrinks that reach by a factor of {@code f / (f + a)}.
+ * <p>
+ * The array methods work on plain columns in straight loops without branches
+ * so the JIT can vectorise them. The results ignore the length of a tick and
+ * the size of the bounding boxes, so callers should keep some margin.
+ */
+public class JumpSolver {
+    private final float acceleration;
+    private final float friction;
+    private float gravity;
+    private float jumpPower;
+
+    public JumpSolver(float gravity, float jumpPower) {
+        this(gravity, jumpPower, PlayerEntity.MOVE_SPEED, PlayerEntity.FRICTION);
+    }
+
+    public JumpSolver(float gravity, float jumpPower, float acceleration, float friction) {
+        this.acceleration = acceleration;
+        this.friction = friction;
+        set(gravity, jumpPower);
+    }
+    
+    public void set(float gravity, float jumpPower) {
+        this.gravity = gravity;
+        this.jumpPower = jumpPower;
+    }
+    
+    /**
+     * @return How high above its start a jump peaks.
+     */
+    public float getApex() {
+        return jumpPower * jumpPower / (2.0f * gravity);
+    }
+    
+    /**
+     * @return Seconds from leaving the ground until falling past
+     * {@code height} above the start, or -1 if the jump never gets that high.
+     */
+    public float getAirTime(float height) {
+        float discriminant = jumpPower * jumpPower - 2.0f * gravity * height;
+        return discriminant < 0.0f ? -1.0f : (jumpPower + (float) Math.sqrt(discriminant)) / gravity;
+    }
+    
+    /**
+     * @return The largest horizontal offset at which a platform
+     * {@code height} above the start can be landed on, or -1 if it cannot be
+     * landed on at all.
+     */
+    public float getReach(float height) {
+        float time = getAirTime(height);
+        return time < 0.0f ? -1.0f : 0.5f * acceleration * time * time;
+    }
+    
+    /**
+     * @return The largest horizontal offset at which the player can come to a
+     * stop by the time it falls past {@code height}, or -1 if it never gets
+     * that high.
+     */
+    public float getStoppingReach(float height) {
+        float reach = getReach(height);
+        return reach < 0.0f ? -1.0f : reach * getStoppingFactor();
+    }
+    
+    /**
+     * @return The fraction of the reach that still allows stopping.
+     */
+    public float getStoppingFactor() {
+        return friction / (friction + acceleration);
+    }
+    
+    /**
+     * Computes {@link #getReach(float)} for {@code count} heights.
+     */
+    public void getReach(float[] heights, float[] reaches, int count) {
+        float speedSquared = jumpPower * jumpPower;
+        float twoGravity = 2.0f * gravity;
+        float inverseGravity = 1.0f / gravity;
+        float halfAcceleration = 0.5f * acceleration;
+        for (int i = 0; i < count; i++) {
+            float discriminant = speedSquared - twoGravity * heights[i];
+            float time = (jumpPower + (float) Math.sqrt(Math.max(discriminant, 0.0f))) * inverseGravity;
+            reaches[i] = discriminant < 0.0f ? -1.0f : halfAcceleration * time * time;
+        }
+    }
+    
+    /**
+     * Computes for {@code count} candidate offsets from the start how much
+     * horizontal room is left after reaching them: the reach at height
+     * {@code dy[i]} minus the distance {@code |dx[i]|}. A negative margin
+     * means the candidate cannot be landed on, and
+     * {@code -Float.MAX_VALUE} means it is above the apex.
+     */
+    public void getMargins(float[] dx, float[] dy, float[] margins, int count) {
+        float speedSquared = jumpPower * jumpPower;
+        float twoGravity = 2.0f * gravity;
+        float inverseGravity = 1.0f / gravity;
+        float halfAcceleration = 0.5f * acceleration;
+        for (int i = 0; i < count; i++) {
+            float discriminant = speedSquared - twoGravity * dy[i];
+            float time = (jumpPower + (float) Math.sqrt(Math.max(discriminant, 0.0f))) * inverseGravity;
+            float margin = halfAcceleration * time * time - Math.abs(dx[i]);
+            margins[i] = discriminant < 0.0f ? -Float.MAX_VALUE : margin;
+        }
+    }
+    
+    /**
+     * Estimates how hard a layout of rows {@code spacing} apart is when every
+     * row is placed uniformly at random over {@code range} pixels and
+     * unreachable rows are redrawn: the chance that a jump to the next row
+     * cannot be made with a stop over the platform. 0 is easy, 1 is
+     * impossible.
+     */
+    public float getDifficulty(float spacing, float range) {
+        return getDifficulty(getReach(spacing), getStoppingFactor(), range);
+    }
+    
+    /**
+     * {@link #getDifficulty(float, float)} for a jump of known reach.
+     */
+    public static float getDifficulty(float reach, float stoppingFactor, float range) {
+        if (reach <= 0.0f) {
+            return 1.0f;
+        }
+        return 1.0f - getOffsetProbability(reach * stoppingFactor, range) / getOffsetProbability(reach, range);
+    }
+    
+    /**
+     * @return The chance that two points drawn uniformly over {@code range}
+     * are at most {@code distance} apart.
+     */
+    public static float getOffsetProbability(float distance, float range) {
+        if (distance >= range) {
+            return 1.0f;
+        }
+        float remainder = 1.0f - Math.max(distance, 0.0f) / range;
+        return 1.0f - remainder * remainder;
+    }
+
+    public float getGravity() {
+        return gravity;
+    }
+
+    public float getJumpPower() {
+        return jumpPower;
+    }
+
+    public float getAcceleration() {
+        return acceleration;
+    }
+
+    public float getFriction() {
+        return friction;
+    }
+}
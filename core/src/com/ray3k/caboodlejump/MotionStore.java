@@ -0,0 +1,251 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Structure of arrays storage for the motion of every live entity in an
+ * {@link EntityManager}. Each entity owns one slot and reads and writes its
+ * position, speed, gravity and collision box offset through it. Slots are kept
+ * packed so that a range of them integrates, and refreshes its collision
+ * boxes, in one pass over primitive columns.
+ * <p>
+ * For serial ticks, where each entity must move in its own turn,
+ * {@link #predict(float)} integrates every slot up front into separate
+ * columns and {@link #commit(int, float)} publishes one slot's result when its
+ * turn comes. Writing a slot's position, speed or gravity in between marks it
+ * dirty, and a dirty slot is integrated again at commit time from its current
+ * values, so the result is the same as integrating in turn.
+ */
+public class MotionStore {
+    float[] x;
+    float[] y;
+    float[] previousX;
+    float[] previousY;
+    float[] xSpeed;
+    float[] ySpeed;
+    float[] gravityX;
+    float[] gravityY;
+    float[] collisionBoxX;
+    float[] collisionBoxY;
+    boolean[] dirty;
+    private float[] nextX;
+    private float[] nextY;
+    private float[] nextXSpeed;
+    private float[] nextYSpeed;
+    private Rectangle[] collisionBoxes;
+    private Entity[] owners;
+    private int size;
+
+    public MotionStore() {
+        this(64);
+    }
+    
+    public MotionStore(int capacity) {
+        resize(Math.max(capacity, 1));
+        size = 0;
+    }
+    
+    /**
+     * Reserves a slot for {@code entity} and returns its index. The slot's
+     * values are left for the caller to fill in.
+     */
+    int allocate(Entity entity) {
+        if (size == owners.length) {
+            resize(size * 2);
+        }
+        owners[size] = entity;
+        collisionBoxes[size] = entity.getCollisionBox();
+        dirty[size] = true;
+        return size++;
+    }
+    
+    /**
+     * Releases a slot by moving the last slot into it, updating the index held
+     * by the moved entity.
+     */
+    void free(int index) {
+        int last = --size;
+        if (index != last) {
+            x[index] = x[last];
+            y[index] = y[last];
+            previousX[index] = previousX[last];
+            previousY[index] = previousY[last];
+            xSpeed[index] = xSpeed[last];
+            ySpeed[index] = ySpeed[last];
+            gravityX[index] = gravityX[last];
+            gravityY[index] = gravityY[last];
+            collisionBoxX[index] = collisionBoxX[last];
+            collisionBoxY[index] = collisionBoxY[last];
+            dirty[index] = dirty[last];
+            nextX[index] = nextX[last];
+            nextY[index] = nextY[last];
+            nextXSpeed[index] = nextXSpeed[last];
+            nextYSpeed[index] = nextYSpeed[last];
+            collisionBoxes[index] = collisionBoxes[last];
+            owners[index] = owners[last];
+            owners[index].motionIndex = index;
+        }
+        collisionBoxes[last] = null;
+        owners[last] = null;
+    }
+    
+    /**
+     * Stores the start of tick positions, applies gravity and speed and moves
+     * the collision box of every slot.
+     */
+    public void integrate(float delta) {
+        integrate(delta, 0, size);
+    }
+    
+    /**
+     * Integrates the slots from {@code start} up to but not including
+     * {@code end}. Disjoint ranges may be integrated from different threads.
+     * Passing a single slot integrates one entity in its turn.
+     */
+    public void integrate(float delta, int start, int end) {
+        final float[] x = this.x;
+        final float[] y = this.y;
+        final float[] previousX = this.previousX;
+        final float[] previousY = this.previousY;
+        final float[] xSpeed = this.xSpeed;
+        final float[] ySpeed = this.ySpeed;
+        final float[] gravityX = this.gravityX;
+        final float[] gravityY = this.gravityY;
+        final float[] collisionBoxX = this.collisionBoxX;
+        final float[] collisionBoxY = this.collisionBoxY;
+        final Rectangle[] collisionBoxes = this.collisionBoxes;
+        
+        for (int i = start; i < end; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            xSpeed[i] += gravityX[i] * delta;
+            ySpeed[i] += gravityY[i] * delta;
+            x[i] += xSpeed[i] * delta;
+            y[i] += ySpeed[i] * delta;
+        }
+        
+        for (int i = start; i < end; i++) {
+            collisionBoxes[i].setPosition(x[i] + collisionBoxX[i], y[i] + collisionBoxY[i]);
+        }
+    }
+    
+    /**
+     * Integrates every slot into the next position and speed columns without
+     * publishing the result, and marks every slot clean.
+     */
+    public void predict(float delta) {
+        final float[] x = this.x;
+        final float[] y = this.y;
+        final float[] xSpeed = this.xSpeed;
+        final float[] ySpeed = this.ySpeed;
+        final float[] gravityX = this.gravityX;
+        final float[] gravityY = this.gravityY;
+        final float[] nextX = this.nextX;
+        final float[] nextY = this.nextY;
+        final float[] nextXSpeed = this.nextXSpeed;
+        final float[] nextYSpeed = this.nextYSpeed;
+        final int size = this.size;
+        
+        for (int i = 0; i < size; i++) {
+            float newXSpeed = xSpeed[i] + gravityX[i] * delta;
+            float newYSpeed = ySpeed[i] + gravityY[i] * delta;
+            nextXSpeed[i] = newXSpeed;
+            nextYSpeed[i] = newYSpeed;
+            nextX[i] = x[i] + newXSpeed * delta;
+            nextY[i] = y[i] + newYSpeed * delta;
+        }
+        Arrays.fill(dirty, 0, size, false);
+    }
+    
+    /**
+     * Publishes the predicted motion of slot {@code index}, or integrates it
+     * now if it was written since {@link #predict(float)}, and moves its
+     * collision box.
+     */
+    public void commit(int index, float delta) {
+        if (dirty[index]) {
+            integrate(delta, index, index + 1);
+            return;
+        }
+        
+        previousX[index] = x[index];
+        previousY[index] = y[index];
+        xSpeed[index] = nextXSpeed[index];
+        ySpeed[index] = nextYSpeed[index];
+        x[index] = nextX[index];
+        y[index] = nextY[index];
+        collisionBoxes[index].setPosition(x[index] + collisionBoxX[index], y[index] + collisionBoxY[index]);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getCapacity() {
+        return owners.length;
+    }
+    
+    private void resize(int capacity) {
+        x = copy(x, capacity);
+        y = copy(y, capacity);
+        previousX = copy(previousX, capacity);
+        previousY = copy(previousY, capacity);
+        xSpeed = copy(xSpeed, capacity);
+        ySpeed = copy(ySpeed, capacity);
+        gravityX = copy(gravityX, capacity);
+        gravityY = copy(gravityY, capacity);
+        collisionBoxX = copy(collisionBoxX, capacity);
+        collisionBoxY = copy(collisionBoxY, capacity);
+        nextX = copy(nextX, capacity);
+        nextY = copy(nextY, capacity);
+        nextXSpeed = copy(nextXSpeed, capacity);
+        nextYSpeed = copy(nextYSpeed, capacity);
+        boolean[] newDirty = new boolean[capacity];
+        if (dirty != null) {
+            System.arraycopy(dirty, 0, newDirty, 0, size);
+        }
+        dirty = newDirty;
+        
+        Rectangle[] newCollisionBoxes = new Rectangle[capacity];
+        Entity[] newOwners = new Entity[capacity];
+        if (owners != null) {
+            System.arraycopy(collisionBoxes, 0, newCollisionBoxes, 0, size);
+            System.arraycopy(owners, 0, newOwners, 0, size);
+        }
+        collisionBoxes = newCollisionBoxes;
+        owners = newOwners;
+    }
+    
+    private float[] copy(float[] column, int capacity) {
+        float[] newColumn = new float[capacity];
+        if (column != null) {
+            System.arraycopy(column, 0, newColumn, 0, size);
+        }
+        return newColumn;
+    }
+}
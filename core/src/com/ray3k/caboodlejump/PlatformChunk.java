@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+/**
+ * A run of consecutive platform rows produced by a
+ * {@link PlatformChunkGenerator}, kept as primitive columns.
+ */
+public class PlatformChunk {
+    public static final byte PLAIN = 0;
+    public static final byte MOVING = 1;
+    public static final byte FALLING = 2;
+    private final int index;
+    final float[] x;
+    final float[] y;
+    final byte[] types;
+    final boolean[] movingLeft;
+
+    PlatformChunk(int index, int size) {
+        this.index = index;
+        x = new float[size];
+        y = new float[size];
+        types = new byte[size];
+        movingLeft = new boolean[size];
+    }
+
+    /**
+     * @return The position of this chunk in the level, starting at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    public int getSize() {
+        return x.length;
+    }
+    
+    public float getX(int row) {
+        return x[row];
+    }
+    
+    public float getY(int row) {
+        return y[row];
+    }
+    
+    /**
+     * @return {@link #PLAIN}, {@link #MOVING} or {@link #FALLING}.
+     */
+    public byte getType(int row) {
+        return types[row];
+    }
+    
+    /**
+     * @return The direction a moving platform starts in.
+     */
+    public boolean isMovingLeft(int row) {
+        return movingLeft[row];
+    }
+}
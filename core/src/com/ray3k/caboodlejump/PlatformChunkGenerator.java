@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+/**
+ * Generates the platform layout in chunks on a background executor, a fixed
+ * number of chunks ahead of the game. Every chunk covers
+ * {@link #getRowsPerChunk()} rows of one platform each and draws its numbers
+ * from streams split off by chunk index, so the layout depends only on the
+ * seed and settings, never on timing. {@link #next()} must be called from a
+ * single thread.
+ * <p>
+ * With a {@link JumpSolver}, each row draws {@link #CANDIDATES} positions and
+ * keeps the first one that can be reached from the row below with
+ * {@link #REACH_SAFETY} of the full reach to spare. If none qualifies the
+ * first is pulled in until it does, so every layout can be climbed. The first
+ * row of a chunk is checked against the last row of the previous chunk, so
+ * chunks are generated in order on the executor.
+ */
+public class PlatformChunkGenerator {
+    public static final String LAYOUT_STREAM = "layout";
+    public static final String PLATFORM_TYPE_STREAM = "platform-type";
+    public static final int CANDIDATES = 8;
+    public static final float REACH_SAFETY = .9f;
+    private final RandomStreams random;
+    private final AsyncExecutor executor;
+    private final float minX;
+    private final float maxX;
+    private final float spacing;
+    private final JumpSolver solver;
+    private final float startX;
+    private final int rowsPerChunk;
+    private final int lookahead;
+    private final Array<AsyncResult<PlatformChunk>> pending;
+    private AsyncResult<PlatformChunk> lastSubmitted;
+    private volatile boolean cancelled;
+    private int nextIndex;
+    private int stalls;
+
+    /**
+     * @param solver Rejects rows that cannot be reached. May be null to place
+     * rows anywhere.
+     * @param startX Where the player starts, at the height of row -1.
+     * @param chunkHeight The height each chunk should at least cover.
+     * @param lookahead How many chunks to keep generated ahead.
+     */
+    public PlatformChunkGenerator(RandomStreams random, AsyncExecutor executor, JumpSolver solver, float startX, float minX, float maxX, float spacing, float chunkHeight, int lookahead) {
+        this.random = random;
+        this.executor = executor;
+        this.solver = solver;
+        this.startX = startX;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.spacing = spacing;
+        this.lookahead = Math.max(1, lookahead);
+        rowsPerChunk = Math.max(1, (int) Math.ceil(chunkHeight / spacing));
+        pending = new Array<AsyncResult<PlatformChunk>>();
+        
+        while (pending.size < this.lookahead) {
+            submit();
+        }
+    }
+    
+    /**
+     * Takes the next chunk in order and queues another one. Only waits if the
+     * executor has fallen behind, which is counted in {@link #getStalls()}.
+     */
+    public PlatformChunk next() {
+        if (cancelled) {
+            throw new GdxRuntimeException("Platform chunk generator has been cancelled.");
+        }
+        AsyncResult<PlatformChunk> result = pending.removeIndex(0);
+        submit();
+        if (!result.isDone()) {
+            stalls++;
+        }
+        return result.get();
+    }
+    
+    private void submit() {
+        final int index = nextIndex++;
+        final AsyncResult<PlatformChunk> previous = lastSubmitted;
+        lastSubmitted = executor.submit(new AsyncTask<PlatformChunk>() {
+            @Override
+            public PlatformChunk call() throws Exception {
+                if (cancelled) {
+                    return null;
+                }
+                PlatformChunk previousChunk = previous == null ? null : previous.get();
+                return generate(index, previousChunk == null ? startX : previousChunk.getX(previousChunk.getSize() - 1));
+            }
+        });
+        pending.add(lastSubmitted);
+    }
+    
+    /**
+     * Drops every queued chunk. Jobs still waiting on the shared executor
+     * return without generating, so a finished game leaves no work behind.
+     * {@link #next()} may not be called afterwards.
+     */
+    public void cancel() {
+        cancelled = true;
+        pending.clear();
+        lastSubmitted = null;
+    }
+    
+    /**
+     * Fills in a chunk whose first row is reached from {@code previousX}. Only
+     * reads final fields, so it may run on any thread.
+     */
+    PlatformChunk generate(int index, float previousX) {
+        RandomStreams chunkRandom = random.split(index);
+        RandomXS128 layout = chunkRandom.get(LAYOUT_STREAM);
+        RandomXS128 types = chunkRandom.get(PLATFORM_TYPE_STREAM);
+        float reach = solver == null ? -1.0f : solver.getReach(spacing) * REACH_SAFETY;
+        float[] dx = new float[CANDIDATES];
+        float[] dy = new float[CANDIDATES];
+        float[] margins = new float[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            dy[i] = spacing;
+        }
+        
+        PlatformChunk chunk = new PlatformChunk(index, rowsPerChunk);
+        int firstRow = index * rowsPerChunk;
+        for (int row = 0; row < rowsPerChunk; row++) {
+            if (reach < 0.0f) {
+                chunk.x[row] = RandomStreams.random(layout, minX, maxX);
+            } else {
+                for (int i = 0; i < CANDIDATES; i++) {
+                    dx[i] = RandomStreams.random(layout, minX, maxX) - previousX;
+                }
+                solver.getMargins(dx, dy, margins, CANDIDATES);
+                
+                float offset = MathUtils.clamp(dx[0], -reach, reach);
+                float slack = reach / REACH_SAFETY - reach;
+                for (int i = 0; i < CANDIDATES; i++) {
+                    if (margins[i] >= slack) {
+                        offset = dx[i];
+                        break;
+                    }
+                }
+                chunk.x[row] = MathUtils.clamp(previousX + offset, minX, maxX);
+            }
+            previousX = chunk.x[row];
+            chunk.y[row] = (firstRow + row + 1) * spacing;
+            chunk.types[row] = (byte) RandomStreams.random(types, PlatformChunk.PLAIN, PlatformChunk.FALLING);
+            chunk.movingLeft[row] = types.nextBoolean();
+        }
+        return chunk;
+    }
+    
+    public int getRowsPerChunk() {
+        return rowsPerChunk;
+    }
+
+    public float getSpacing() {
+        return spacing;
+    }
+
+    public JumpSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * @return How many times {@link #next()} had to wait for a chunk.
+     */
+    public int getStalls() {
+        return stalls;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Allocation free helpers for polygons stored as packed x/y vertex arrays, such
+ * as the polygons kept by {@link com.esotericsoftware.spine.SkeletonBounds}.
+ * Only the first {@code count} floats of each array are read.
+ */
+public class PolygonUtils {
+    public static boolean overlapConvexPolygons(float[] vertices1, int count1, float[] vertices2, int count2) {
+        return !hasSeparatingAxis(vertices1, count1, vertices1, count1, vertices2, count2)
+                && !hasSeparatingAxis(vertices2, count2, vertices1, count1, vertices2, count2);
+    }
+    
+    private static boolean hasSeparatingAxis(float[] edges, int edgeCount, float[] vertices1, int count1, float[] vertices2, int count2) {
+        for (int i = 0; i < edgeCount; i += 2) {
+            int next = i + 2 < edgeCount ? i + 2 : 0;
+            float axisX = edges[i + 1] - edges[next + 1];
+            float axisY = edges[next] - edges[i];
+            
+            float min1 = Float.MAX_VALUE;
+            float max1 = -Float.MAX_VALUE;
+            for (int j = 0; j < count1; j += 2) {
+                float projection = axisX * vertices1[j] + axisY * vertices1[j + 1];
+                if (projection < min1) {
+                    min1 = projection;
+                }
+                if (projection > max1) {
+                    max1 = projection;
+                }
+            }
+            
+            float min2 = Float.MAX_VALUE;
+            float max2 = -Float.MAX_VALUE;
+            for (int j = 0; j < count2; j += 2) {
+                float projection = axisX * vertices2[j] + axisY * vertices2[j + 1];
+                if (projection < min2) {
+                    min2 = projection;
+                }
+                if (projection > max2) {
+                    max2 = projection;
+                }
+            }
+            
+            if (max1 < min2 || max2 < min1) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public static float getMinX(float[] vertices, int count) {
+        float value = Float.MAX_VALUE;
+        for (int i = 0; i < count; i += 2) {
+            if (vertices[i] < value) {
+                value = vertices[i];
+            }
+        }
+        return value;
+    }
+    
+    public static float getMaxX(float[] vertices, int count) {
+        float value = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i += 2) {
+            if (vertices[i] > value) {
+                value = vertices[i];
+            }
+        }
+        return value;
+    }
+    
+    public static Rectangle getBoundingRectangle(float[] vertices, int count, Rectangle rectangle) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i += 2) {
+            float x = vertices[i];
+            float y = vertices[i + 1];
+            minX = x < minX ? x : minX;
+            minY = y < minY ? y : minY;
+            maxX = x > maxX ? x : maxX;
+            maxY = y > maxY ? y : maxY;
+        }
+        return rectangle.set(minX, minY, maxX - minX, maxY - minY);
+    }
+}
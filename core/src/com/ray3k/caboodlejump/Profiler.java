@@ -0,0 +1,318 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Hierarchical zone profiler. Each zone keeps the last {@link #SAMPLE_COUNT}
+ * totals in a preallocated ring; time is accumulated between
+ * {@link #begin(int)} and {@link #end(int)}, or with {@link #add(int, long)},
+ * and pushed into the rings of a whole tree by {@link #commit(int)}.
+ * <p>
+ * A zone must only be timed from one thread at a time. The tick zones belong
+ * to whichever thread runs the simulation and the frame zones to the render
+ * thread. Statistics may be read from any thread and are approximate while
+ * samples are being written. When disabled every call returns after a single
+ * field read.
+ */
+public class Profiler {
+    public static final int SAMPLE_COUNT = 256;
+    public static final int MAX_ZONES = 64;
+    public static final int TICK = 0;
+    public static final int TICK_INTEGRATE = 1;
+    public static final int TICK_PREPARE = 2;
+    public static final int TICK_ENTITIES = 3;
+    public static final int TICK_ACT_END = 4;
+    public static final int TICK_AUDIO = 5;
+    public static final int CAPTURE = 6;
+    public static final int FRAME = 7;
+    public static final int FRAME_ENTITIES = 8;
+    public static final int FRAME_SUBMIT = 9;
+    public static final int FRAME_STAGE = 10;
+    public static final int INPUT_LATENCY = 11;
+    private volatile boolean enabled;
+    private final String[] names;
+    private final int[] parents;
+    private final int[] roots;
+    private final int[] depths;
+    private final long[][] samples;
+    private final int[] sampleCounts;
+    private final int[] writeIndices;
+    private final long[] accumulated;
+    private final long[] starts;
+    private volatile int zoneCount;
+    private final ObjectIntMap<Class<?>> entityZones;
+    private final long[] sorted;
+
+    public Profiler() {
+        names = new String[MAX_ZONES];
+        parents = new int[MAX_ZONES];
+        roots = new int[MAX_ZONES];
+        depths = new int[MAX_ZONES];
+        samples = new long[MAX_ZONES][SAMPLE_COUNT];
+        sampleCounts = new int[MAX_ZONES];
+        writeIndices = new int[MAX_ZONES];
+        accumulated = new long[MAX_ZONES];
+        starts = new long[MAX_ZONES];
+        entityZones = new ObjectIntMap<Class<?>>();
+        sorted = new long[SAMPLE_COUNT];
+        
+        register("tick", -1);
+        register("integrate", TICK);
+        register("prepare", TICK);
+        register("entities", TICK);
+        register("act_end", TICK);
+        register("audio", TICK);
+        register("capture", -1);
+        register("frame", -1);
+        register("entities", FRAME);
+        register("sort+submit", FRAME);
+        register("stage", FRAME);
+        register("input latency", -1);
+    }
+    
+    /**
+     * Adds a zone under {@code parent}, or as a root if {@code parent} is -1,
+     * and returns its id.
+     */
+    public synchronized int register(String name, int parent) {
+        int zone = zoneCount;
+        if (zone == MAX_ZONES) {
+            throw new GdxRuntimeException("Too many profiler zones: " + name);
+        }
+        
+        names[zone] = name;
+        parents[zone] = parent;
+        roots[zone] = parent == -1 ? zone : roots[parent];
+        depths[zone] = parent == -1 ? 0 : depths[parent] + 1;
+        zoneCount = zone + 1;
+        return zone;
+    }
+    
+    /**
+     * @return The zone under {@link #TICK_ENTITIES} timing entities of
+     * {@code type}, registered on first use.
+     */
+    public int getEntityZone(Class<?> type) {
+        int zone = entityZones.get(type, -1);
+        if (zone == -1) {
+            zone = register(type.getSimpleName(), TICK_ENTITIES);
+            entityZones.put(type, zone);
+        }
+        return zone;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops collecting samples. Enabling clears the samples left
+     * from the previous run.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+    }
+    
+    public void begin(int zone) {
+        if (enabled) {
+            starts[zone] = System.nanoTime();
+        }
+    }
+    
+    /**
+     * Ends a zone. A zone that began before profiling was enabled is ignored.
+     */
+    public void end(int zone) {
+        if (enabled) {
+            long start = starts[zone];
+            if (start != 0L) {
+                accumulated[zone] += System.nanoTime() - start;
+                starts[zone] = 0L;
+            }
+        }
+    }
+    
+    /**
+     * Adds time measured by the caller to a zone.
+     */
+    public void add(int zone, long nanos) {
+        if (enabled) {
+            accumulated[zone] += nanos;
+        }
+    }
+    
+    /**
+     * Pushes the time accumulated by {@code root} and every zone below it as
+     * one sample each, then starts accumulating again.
+     */
+    public void commit(int root) {
+        if (!enabled) {
+            return;
+        }
+        
+        for (int zone = 0, n = zoneCount; zone < n; zone++) {
+            if (roots[zone] == root) {
+                int index = writeIndices[zone];
+                samples[zone][index] = accumulated[zone];
+                writeIndices[zone] = (index + 1) % SAMPLE_COUNT;
+                if (sampleCounts[zone] < SAMPLE_COUNT) {
+                    sampleCounts[zone]++;
+                }
+                accumulated[zone] = 0L;
+            }
+        }
+    }
+    
+    private void reset() {
+        for (int zone = 0; zone < MAX_ZONES; zone++) {
+            sampleCounts[zone] = 0;
+            writeIndices[zone] = 0;
+            accumulated[zone] = 0L;
+            starts[zone] = 0L;
+        }
+    }
+    
+    public int getZoneCount() {
+        return zoneCount;
+    }
+    
+    public String getName(int zone) {
+        return names[zone];
+    }
+    
+    public int getParent(int zone) {
+        return parents[zone];
+    }
+    
+    public int getDepth(int zone) {
+        return depths[zone];
+    }
+    
+    public int getSampleCount(int zone) {
+        return sampleCounts[zone];
+    }
+    
+    public long getMin(int zone) {
+        int count = sampleCounts[zone];
+        if (count == 0) {
+            return 0L;
+        }
+        
+        long[] zoneSamples = samples[zone];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, zoneSamples[i]);
+        }
+        return min;
+    }
+    
+    public long getMax(int zone) {
+        long[] zoneSamples = samples[zone];
+        long max = 0L;
+        for (int i = 0, n = sampleCounts[zone]; i < n; i++) {
+            max = Math.max(max, zoneSamples[i]);
+        }
+        return max;
+    }
+    
+    public long getAverage(int zone) {
+        int count = sampleCounts[zone];
+        if (count == 0) {
+            return 0L;
+        }
+        
+        long[] zoneSamples = samples[zone];
+        long total = 0L;
+        for (int i = 0; i < count; i++) {
+            total += zoneSamples[i];
+        }
+        return total / count;
+    }
+    
+    /**
+     * @param percentile Between 0 and 1.
+     */
+    public synchronized long getPercentile(int zone, float percentile) {
+        int count = sampleCounts[zone];
+        if (count == 0) {
+            return 0L;
+        }
+        
+        System.arraycopy(samples[zone], 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int index = Math.max(0, Math.min(count - 1, (int) Math.ceil(percentile * count) - 1));
+        return sorted[index];
+    }
+    
+    /**
+     * Writes one line per zone with its parent, sample count and min, average,
+     * p99 and max in microseconds.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("zone,parent,depth,samples,min_us,avg_us,p99_us,max_us\n");
+        for (int zone = 0, n = zoneCount; zone < n; zone++) {
+            writer.write(names[zone]);
+            writer.write(',');
+            writer.write(parents[zone] == -1 ? "" : names[parents[zone]]);
+            writer.write(',');
+            writer.write(Integer.toString(depths[zone]));
+            writer.write(',');
+            writer.write(Integer.toString(sampleCounts[zone]));
+            writer.write(',');
+            writer.write(Float.toString(getMin(zone) / 1000.0f));
+            writer.write(',');
+            writer.write(Float.toString(getAverage(zone) / 1000.0f));
+            writer.write(',');
+            writer.write(Float.toString(getPercentile(zone, .99f) / 1000.0f));
+            writer.write(',');
+            writer.write(Float.toString(getMax(zone) / 1000.0f));
+            writer.write('\n');
+        }
+    }
+    
+    public void writeCsv(FileHandle file) {
+        Writer writer = file.writer(false, "UTF-8");
+        try {
+            writeCsv(writer);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing profile: " + file, e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
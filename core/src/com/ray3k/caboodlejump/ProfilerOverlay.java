@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.Align;
+
+/**
+ * Shows the rolling min, average and p99 of every {@link Profiler} zone in
+ * milliseconds, indented by depth. The text is rebuilt a few times a second
+ * rather than every frame.
+ */
+public class ProfilerOverlay extends Table {
+    private static final float REFRESH_INTERVAL = .5f;
+    private final Profiler profiler;
+    private final Label label;
+    private final StringBuilder builder;
+    private float refreshTimer;
+    private RenderCommandBuffer renderCommandBuffer;
+    private InputManager inputManager;
+
+    public ProfilerOverlay(Profiler profiler, Skin skin) {
+        this.profiler = profiler;
+        builder = new StringBuilder();
+        setFillParent(true);
+        top().left().pad(10.0f);
+        label = new Label("", skin);
+        label.setAlignment(Align.topLeft);
+        add(label);
+    }
+
+    /**
+     * Also shows the submit counts of {@code renderCommandBuffer}. May be null.
+     */
+    public void setRenderCommandBuffer(RenderCommandBuffer renderCommandBuffer) {
+        this.renderCommandBuffer = renderCommandBuffer;
+    }
+    
+    /**
+     * Also shows the input latency jitter and dropped events of
+     * {@code inputManager}. May be null.
+     */
+    public void setInputManager(InputManager inputManager) {
+        this.inputManager = inputManager;
+    }
+    
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        
+        refreshTimer -= delta;
+        if (refreshTimer <= 0.0f) {
+            refreshTimer = REFRESH_INTERVAL;
+            refresh();
+        }
+    }
+    
+    private void refresh() {
+        builder.setLength(0);
+        builder.append("zone  min / avg / p99 ms");
+        for (int zone = 0, n = profiler.getZoneCount(); zone < n; zone++) {
+            builder.append('\n');
+            for (int i = 0; i < profiler.getDepth(zone); i++) {
+                builder.append("    ");
+            }
+            builder.append(profiler.getName(zone)).append("  ");
+            appendMillis(profiler.getMin(zone)).append(" / ");
+            appendMillis(profiler.getAverage(zone)).append(" / ");
+            appendMillis(profiler.getPercentile(zone, .99f));
+        }
+        
+        if (renderCommandBuffer != null) {
+            builder.append("\ncommands ").append(renderCommandBuffer.getSubmittedCommands());
+            builder.append("  render calls ").append(renderCommandBuffer.getRenderCalls());
+            builder.append("  texture switches ").append(renderCommandBuffer.getTextureSwitches());
+        }
+        if (inputManager != null) {
+            builder.append("\ninput latency ");
+            appendMillis(inputManager.getAverageLatency()).append(" +/- ");
+            appendMillis(inputManager.getLatencyJitter()).append(" ms  max ");
+            appendMillis(inputManager.getMaxLatency()).append(" ms  dropped ").append(inputManager.getDroppedEvents());
+        }
+        label.setText(builder);
+    }
+    
+    private StringBuilder appendMillis(long nanos) {
+        long hundredths = nanos / 10000L;
+        builder.append(hundredths / 100L).append('.');
+        long fraction = hundredths % 100L;
+        if (fraction < 10L) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+}
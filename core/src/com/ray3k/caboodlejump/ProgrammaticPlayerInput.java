@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+/**
+ * Player input driven from code instead of the keyboard. Set the key states
+ * before a tick and call {@link #advance()} after it so that jump presses are
+ * only reported on the tick they start.
+ */
+public class ProgrammaticPlayerInput implements PlayerInput {
+    private boolean up;
+    private boolean left;
+    private boolean right;
+    private boolean previousUp;
+
+    @Override
+    public boolean isJumpJustPressed() {
+        return up && !previousUp;
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        return left;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return right;
+    }
+    
+    public void advance() {
+        previousUp = up;
+    }
+    
+    public void set(boolean up, boolean left, boolean right) {
+        this.up = up;
+        this.left = left;
+        this.right = right;
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public void setUp(boolean up) {
+        this.up = up;
+    }
+
+    public boolean isLeft() {
+        return left;
+    }
+
+    public void setLeft(boolean left) {
+        this.left = left;
+    }
+
+    public boolean isRight() {
+        return right;
+    }
+
+    public void setRight(boolean right) {
+        this.right = right;
+    }
+    
+    public void clear() {
+        up = false;
+        left = false;
+        right = false;
+        previousUp = false;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Independent random number streams derived from a single seed. Each named
+ * stream is seeded from the seed and its name alone, so drawing from one
+ * stream, or adding a new one, never changes the sequence of another.
+ * <p>
+ * Streams are not thread safe. Code running on another thread should
+ * {@link #split(String)} its own set of streams rather than share one.
+ */
+public class RandomStreams {
+    private final long seed;
+    private final ObjectMap<String, RandomXS128> streams;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        streams = new ObjectMap<String, RandomXS128>();
+    }
+    
+    /**
+     * @return The stream called {@code name}, created on first use.
+     */
+    public RandomXS128 get(String name) {
+        RandomXS128 stream = streams.get(name);
+        if (stream == null) {
+            stream = new RandomXS128(derive(name));
+            streams.put(name, stream);
+        }
+        return stream;
+    }
+    
+    /**
+     * @return A child set of streams whose seed depends only on this seed and
+     * {@code name}.
+     */
+    public RandomStreams split(String name) {
+        return new RandomStreams(mix(derive(name) ^ 0x9e3779b97f4a7c15L));
+    }
+    
+    /**
+     * @return A child set of streams whose seed depends only on this seed and
+     * {@code index}, for things such as numbered chunks.
+     */
+    public RandomStreams split(long index) {
+        return new RandomStreams(mix(seed + mix(index + 0x9e3779b97f4a7c15L)));
+    }
+    
+    /**
+     * Restarts every stream from the beginning.
+     */
+    public void reset() {
+        streams.clear();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+    
+    private long derive(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(seed ^ hash);
+    }
+    
+    /**
+     * The SplitMix64 finalizer.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+    
+    /**
+     * @return A float between {@code start} inclusive and {@code end}
+     * exclusive, like {@link com.badlogic.gdx.math.MathUtils#random(float, float)}.
+     */
+    public static float random(RandomXS128 stream, float start, float end) {
+        return start + stream.nextFloat() * (end - start);
+    }
+    
+    /**
+     * @return An int between {@code start} and {@code end} inclusive, like
+     * {@link com.badlogic.gdx.math.MathUtils#random(int, int)}.
+     */
+    public static int random(RandomXS128 stream, int start, int end) {
+        return start + stream.nextInt(end - start + 1);
+    }
+}
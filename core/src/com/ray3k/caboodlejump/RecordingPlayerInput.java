@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+/**
+ * Passes another input through while adding what it reported on every tick to
+ * an {@link InputRecording}. Call {@link #sample()} before a tick and
+ * {@link #record(int)} after it on checkpoints, or {@link #record()} on other
+ * ticks.
+ */
+public class RecordingPlayerInput implements PlayerInput {
+    private final PlayerInput source;
+    private final InputRecording recording;
+    private int input;
+
+    public RecordingPlayerInput(PlayerInput source, InputRecording recording) {
+        this.source = source;
+        this.recording = recording;
+    }
+    
+    /**
+     * Reads the source once so every query during the tick sees the same
+     * state.
+     */
+    public void sample() {
+        input = 0;
+        if (source.isJumpJustPressed()) {
+            input |= InputRecording.UP;
+        }
+        if (source.isLeftPressed()) {
+            input |= InputRecording.LEFT;
+        }
+        if (source.isRightPressed()) {
+            input |= InputRecording.RIGHT;
+        }
+    }
+    
+    /**
+     * @return True if the tick being run needs a checksum.
+     */
+    public boolean isCheckpoint() {
+        return recording.isCheckpoint(recording.getTickCount());
+    }
+    
+    public void record() {
+        recording.addTick(input);
+    }
+    
+    public void record(int checksum) {
+        recording.addTick(input, checksum);
+    }
+
+    @Override
+    public boolean isJumpJustPressed() {
+        return (input & InputRecording.UP) != 0;
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        return (input & InputRecording.LEFT) != 0;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return (input & InputRecording.RIGHT) != 0;
+    }
+
+    public PlayerInput getSource() {
+        return source;
+    }
+
+    public InputRecording getRecording() {
+        return recording;
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.esotericsoftware.spine.BlendMode;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.Slot;
+import com.esotericsoftware.spine.attachments.Attachment;
+import com.esotericsoftware.spine.attachments.MeshAttachment;
+import com.esotericsoftware.spine.attachments.RegionAttachment;
+import java.util.Arrays;
+
+/**
+ * Collects the quads drawn by entities in a frame and submits them to a
+ * SpriteBatch sorted by depth, grouping commands of the same texture and blend
+ * mode so that the batch flushes as rarely as possible.
+ * <p>
+ * Within a depth, each command joins the most recent group with its texture
+ * and blend mode, as long as it does not overlap the bounds of any group added
+ * after that one. Otherwise it starts a new group. Groups are drawn in the
+ * order they were started and commands within a group in the order they were
+ * added, so any two overlapping commands still draw in the order they were
+ * added. Only the last {@link #MAX_LOOKBACK} groups are searched.
+ * <p>
+ * Each command is packed into a long sort key: 19 bits of inverted depth, so
+ * that higher depths draw first, 16 bits of group number and 28 bits of
+ * sequence number, which also indexes the command.
+ */
+public class RenderCommandBuffer {
+    private static final int QUAD_SIZE = 20;
+    private static final int DEPTH_LIMIT = 1 << 18;
+    private static final long SEQUENCE_MASK = (1L << 28) - 1;
+    private static final int GROUP_LIMIT = 1 << 16;
+    public static final int MAX_LOOKBACK = 16;
+    private static final BlendMode[] BLEND_MODES = BlendMode.values();
+    private float[] vertices;
+    private int vertexCount;
+    private long[] keys;
+    private int[] offsets;
+    private int[] counts;
+    private Texture[] commandTextures;
+    private byte[] commandBlends;
+    private int commandCount;
+    private Texture[] groupTextures;
+    private int[] groupBlends;
+    private float[] groupBounds;
+    private int groupCount;
+    private int groupStart;
+    private int groupDepth;
+    private boolean grouping;
+    private int depth;
+    private BlendMode blendMode;
+    private float color;
+    private final Color tempColor;
+    private final float[] quad;
+    private int renderCalls;
+    private int textureSwitches;
+    private int blendSwitches;
+    private int submittedCommands;
+
+    public RenderCommandBuffer() {
+        vertices = new float[QUAD_SIZE * 256];
+        keys = new long[256];
+        offsets = new int[256];
+        counts = new int[256];
+        commandTextures = new Texture[256];
+        commandBlends = new byte[256];
+        groupTextures = new Texture[64];
+        groupBlends = new int[64];
+        groupBounds = new float[64 * 4];
+        grouping = true;
+        blendMode = BlendMode.normal;
+        color = Color.WHITE.toFloatBits();
+        tempColor = new Color();
+        quad = new float[QUAD_SIZE];
+    }
+    
+    /**
+     * Discards every queued command and resets the depth, blend mode and
+     * color.
+     */
+    public void clear() {
+        for (int i = 0; i < commandCount; i++) {
+            commandTextures[i] = null;
+        }
+        for (int i = 0; i < groupCount; i++) {
+            groupTextures[i] = null;
+        }
+        vertexCount = 0;
+        commandCount = 0;
+        groupCount = 0;
+        groupStart = 0;
+        depth = 0;
+        blendMode = BlendMode.normal;
+        color = Color.WHITE.toFloatBits();
+    }
+    
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the depth of the commands added next. Higher depths are drawn
+     * first.
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public BlendMode getBlendMode() {
+        return blendMode;
+    }
+
+    public void setBlendMode(BlendMode blendMode) {
+        this.blendMode = blendMode;
+    }
+    
+    public void setColor(Color color) {
+        this.color = color.toFloatBits();
+    }
+
+    public boolean isGrouping() {
+        return grouping;
+    }
+
+    /**
+     * When false, commands of the same depth are drawn in the order they were
+     * added, whatever their texture and blend mode. For comparing flush
+     * counts.
+     */
+    public void setGrouping(boolean grouping) {
+        this.grouping = grouping;
+    }
+    
+    /**
+     * Adds {@code count} floats of SpriteBatch vertices, a multiple of 20, as
+     * one command.
+     */
+    public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+        drawTranslated(texture, spriteVertices, offset, count, 0.0f, 0.0f);
+    }
+    
+    /**
+     * Adds SpriteBatch vertices moved by {@code x}, {@code y}.
+     */
+    public void drawTranslated(Texture texture, float[] spriteVertices, int offset, int count, float x, float y) {
+        int start = reserve(texture, count);
+        float[] vertices = this.vertices;
+        System.arraycopy(spriteVertices, offset, vertices, start, count);
+        if (x != 0.0f || y != 0.0f) {
+            for (int i = start, n = start + count; i < n; i += 5) {
+                vertices[i] += x;
+                vertices[i + 1] += y;
+            }
+        }
+        group(commandCount - 1, start, count);
+    }
+    
+    /**
+     * Adds a region scaled and rotated around its origin, as
+     * {@link SpriteBatch#draw(TextureRegion, float, float, float, float, float, float, float, float, float)}.
+     */
+    public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation) {
+        float worldOriginX = x + originX;
+        float worldOriginY = y + originY;
+        float fx = -originX * scaleX;
+        float fy = -originY * scaleY;
+        float fx2 = (width - originX) * scaleX;
+        float fy2 = (height - originY) * scaleY;
+        
+        float x1, y1, x2, y2, x3, y3, x4, y4;
+        if (rotation != 0.0f) {
+            float cos = MathUtils.cosDeg(rotation);
+            float sin = MathUtils.sinDeg(rotation);
+            x1 = cos * fx - sin * fy;
+            y1 = sin * fx + cos * fy;
+            x2 = cos * fx - sin * fy2;
+            y2 = sin * fx + cos * fy2;
+            x3 = cos * fx2 - sin * fy2;
+            y3 = sin * fx2 + cos * fy2;
+            x4 = x1 + (x3 - x2);
+            y4 = y3 - (y2 - y1);
+        } else {
+            x1 = fx;
+            y1 = fy;
+            x2 = fx;
+            y2 = fy2;
+            x3 = fx2;
+            y3 = fy2;
+            x4 = fx2;
+            y4 = fy;
+        }
+        
+        setQuad(x1 + worldOriginX, y1 + worldOriginY, x2 + worldOriginX, y2 + worldOriginY, x3 + worldOriginX, y3 + worldOriginY, x4 + worldOriginX, y4 + worldOriginY, region.getU(), region.getV2(), region.getU2(), region.getV());
+        draw(region.getTexture(), quad, 0, QUAD_SIZE);
+    }
+    
+    /**
+     * Adds an axis aligned quad with explicit texture coordinates, as
+     * {@link SpriteBatch#draw(Texture, float, float, float, float, float, float, float, float)}.
+     */
+    public void draw(Texture texture, float x, float y, float width, float height, float u, float v, float u2, float v2) {
+        setQuad(x, y, x, y + height, x + width, y + height, x + width, y, u, v, u2, v2);
+        draw(texture, quad, 0, QUAD_SIZE);
+    }
+    
+    /**
+     * Adds the region attachments of a posed skeleton in draw order, each with
+     * its slot's blend mode. Like SkeletonRenderer with a plain Batch, meshes
+     * are not supported.
+     */
+    public void draw(Skeleton skeleton) {
+        BlendMode previousBlendMode = blendMode;
+        Array<Slot> drawOrder = skeleton.getDrawOrder();
+        for (int i = 0; i < drawOrder.size; i++) {
+            Slot slot = drawOrder.get(i);
+            Attachment attachment = slot.getAttachment();
+            if (attachment instanceof RegionAttachment) {
+                RegionAttachment region = (RegionAttachment) attachment;
+                region.computeWorldVertices(slot.getBone(), quad, 0, 5);
+                float packedColor = tempColor.set(skeleton.getColor()).mul(slot.getColor()).mul(region.getColor()).toFloatBits();
+                float[] uvs = region.getUVs();
+                for (int u = 0, v = 2; u < 8; u += 2, v += 5) {
+                    quad[v] = packedColor;
+                    quad[v + 1] = uvs[u];
+                    quad[v + 2] = uvs[u + 1];
+                }
+                
+                blendMode = slot.getData().getBlendMode();
+                draw(region.getRegion().getTexture(), quad, 0, QUAD_SIZE);
+            } else if (attachment instanceof MeshAttachment) {
+                throw new GdxRuntimeException("RenderCommandBuffer cannot render meshes.");
+            }
+        }
+        blendMode = previousBlendMode;
+    }
+    
+    /**
+     * Sorts the queued commands, draws them with {@code batch}, which must
+     * have begun, flushes it and clears the buffer.
+     */
+    public void submit(SpriteBatch batch) {
+        Arrays.sort(keys, 0, commandCount);
+        
+        int renderCallsBefore = batch.renderCalls;
+        Texture lastTexture = null;
+        int lastBlend = BlendMode.normal.ordinal();
+        textureSwitches = 0;
+        blendSwitches = 0;
+        for (int i = 0; i < commandCount; i++) {
+            long key = keys[i];
+            int index = (int) (key & SEQUENCE_MASK);
+            int blend = commandBlends[index];
+            if (blend != lastBlend) {
+                BlendMode mode = BLEND_MODES[blend];
+                batch.setBlendFunction(mode.getSource(false), mode.getDest());
+                lastBlend = blend;
+                blendSwitches++;
+            }
+            
+            Texture texture = commandTextures[index];
+            if (texture != lastTexture) {
+                if (lastTexture != null) {
+                    textureSwitches++;
+                }
+                lastTexture = texture;
+            }
+            
+            batch.draw(texture, vertices, offsets[index], counts[index]);
+        }
+        batch.flush();
+        if (lastBlend != BlendMode.normal.ordinal()) {
+            batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+        
+        renderCalls = batch.renderCalls - renderCallsBefore;
+        submittedCommands = commandCount;
+        clear();
+    }
+    
+    private void setQuad(float x1, float y1, float x2, float y2, float x3, float y3, float x4, float y4, float u, float v, float u2, float v2) {
+        float[] quad = this.quad;
+        quad[0] = x1;
+        quad[1] = y1;
+        quad[2] = color;
+        quad[3] = u;
+        quad[4] = v;
+        quad[5] = x2;
+        quad[6] = y2;
+        quad[7] = color;
+        quad[8] = u;
+        quad[9] = v2;
+        quad[10] = x3;
+        quad[11] = y3;
+        quad[12] = color;
+        quad[13] = u2;
+        quad[14] = v2;
+        quad[15] = x4;
+        quad[16] = y4;
+        quad[17] = color;
+        quad[18] = u2;
+        quad[19] = v;
+    }
+    
+    /**
+     * Appends a command and returns where its vertices start.
+     */
+    private int reserve(Texture texture, int count) {
+        if (commandCount == keys.length) {
+            int capacity = commandCount * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            commandTextures = Arrays.copyOf(commandTextures, capacity);
+            commandBlends = Arrays.copyOf(commandBlends, capacity);
+        }
+        if (vertexCount + count > vertices.length) {
+            vertices = Arrays.copyOf(vertices, Math.max(vertices.length * 2, vertexCount + count));
+        }
+        
+        int index = commandCount++;
+        offsets[index] = vertexCount;
+        counts[index] = count;
+        commandTextures[index] = texture;
+        commandBlends[index] = (byte) blendMode.ordinal();
+        
+        int start = vertexCount;
+        vertexCount += count;
+        return start;
+    }
+
+    /**
+     * Puts a command whose vertices have been written into a group and builds
+     * its sort key.
+     */
+    private void group(int index, int start, int count) {
+        float[] vertices = this.vertices;
+        float minX = vertices[start];
+        float minY = vertices[start + 1];
+        float maxX = minX;
+        float maxY = minY;
+        for (int i = start + 5, n = start + count; i < n; i += 5) {
+            minX = Math.min(minX, vertices[i]);
+            minY = Math.min(minY, vertices[i + 1]);
+            maxX = Math.max(maxX, vertices[i]);
+            maxY = Math.max(maxY, vertices[i + 1]);
+        }
+        
+        if (groupCount == groupStart || depth != groupDepth) {
+            groupStart = groupCount;
+            groupDepth = depth;
+        }
+        
+        Texture texture = commandTextures[index];
+        int blend = commandBlends[index];
+        float[] bounds = groupBounds;
+        int group = -1;
+        if (!grouping) {
+            if (groupCount > groupStart) {
+                group = groupCount - 1;
+            }
+        } else {
+            for (int i = groupCount - 1, stop = Math.max(groupStart, groupCount - MAX_LOOKBACK); i >= stop; i--) {
+                if (groupTextures[i] == texture && groupBlends[i] == blend) {
+                    group = i;
+                    break;
+                }
+                int b = i * 4;
+                if (minX < bounds[b + 2] && maxX > bounds[b] && minY < bounds[b + 3] && maxY > bounds[b + 1]) {
+                    break;
+                }
+            }
+        }
+        
+        if (group == -1) {
+            if (groupCount == GROUP_LIMIT) {
+                group = groupCount - 1;
+            } else {
+                if (groupCount == groupTextures.length) {
+                    int capacity = groupCount * 2;
+                    groupTextures = Arrays.copyOf(groupTextures, capacity);
+                    groupBlends = Arrays.copyOf(groupBlends, capacity);
+                    groupBounds = bounds = Arrays.copyOf(groupBounds, capacity * 4);
+                }
+                group = groupCount++;
+                groupTextures[group] = texture;
+                groupBlends[group] = blend;
+                int b = group * 4;
+                bounds[b] = minX;
+                bounds[b + 1] = minY;
+                bounds[b + 2] = maxX;
+                bounds[b + 3] = maxY;
+            }
+        }
+        int b = group * 4;
+        bounds[b] = Math.min(bounds[b], minX);
+        bounds[b + 1] = Math.min(bounds[b + 1], minY);
+        bounds[b + 2] = Math.max(bounds[b + 2], maxX);
+        bounds[b + 3] = Math.max(bounds[b + 3], maxY);
+        
+        int depthKey = DEPTH_LIMIT - 1 - MathUtils.clamp(depth, -DEPTH_LIMIT, DEPTH_LIMIT - 1);
+        keys[index] = ((long) depthKey << 44) | ((long) group << 28) | index;
+    }
+
+    /**
+     * @return The number of commands queued so far this frame.
+     */
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * @return The number of commands drawn by the last submit.
+     */
+    public int getSubmittedCommands() {
+        return submittedCommands;
+    }
+
+    /**
+     * @return SpriteBatch render calls, one per flush, caused by the last
+     * submit.
+     */
+    public int getRenderCalls() {
+        return renderCalls;
+    }
+
+    /**
+     * @return How many times the texture changed during the last submit.
+     */
+    public int getTextureSwitches() {
+        return textureSwitches;
+    }
+
+    /**
+     * @return How many times the blend mode changed during the last submit.
+     */
+    public int getBlendSwitches() {
+        return blendSwitches;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Everything the render thread needs to draw one simulation tick, with entries
+ * in draw order. Entries are recycled between captures.
+ */
+public class RenderSnapshot {
+    private final Array<EntitySnapshot> entries;
+    private final Array<EntitySnapshot> freeEntries;
+    private long time;
+    private float cameraX;
+    private float cameraY;
+    private float previousCameraX;
+    private float previousCameraY;
+
+    public RenderSnapshot() {
+        entries = new Array<EntitySnapshot>();
+        freeEntries = new Array<EntitySnapshot>();
+        time = 0;
+    }
+    
+    public void begin(long time) {
+        this.time = time;
+        clear();
+    }
+    
+    public void clear() {
+        for (EntitySnapshot entry : entries) {
+            entry.clear();
+        }
+        freeEntries.addAll(entries);
+        entries.clear();
+    }
+    
+    public EntitySnapshot add(Entity entity) {
+        EntitySnapshot entry = freeEntries.size > 0 ? freeEntries.pop() : new EntitySnapshot();
+        entry.set(entity);
+        entries.add(entry);
+        return entry;
+    }
+    
+    public Array<EntitySnapshot> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} of the capture, or 0 if nothing has
+     * been captured yet.
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    public void setTime(long time) {
+        this.time = time;
+    }
+    
+    public void setCamera(float previousX, float previousY, float x, float y) {
+        previousCameraX = previousX;
+        previousCameraY = previousY;
+        cameraX = x;
+        cameraY = y;
+    }
+    
+    public float getCameraX(float alpha) {
+        return MathUtils.lerp(previousCameraX, cameraX, alpha);
+    }
+    
+    public float getCameraY(float alpha) {
+        return MathUtils.lerp(previousCameraY, cameraY, alpha);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * Plays an {@link InputRecording} back one tick at a time and compares the
+ * world checksum after each checkpoint with the recorded one. Call
+ * {@link #advance()} before a tick and {@link #verify(int)} after it on
+ * checkpoints. Once the recording runs out no keys are reported.
+ */
+public class ReplayPlayerInput implements PlayerInput {
+    private final InputRecording recording;
+    private int tick;
+    private int input;
+    private int desyncTick;
+
+    public ReplayPlayerInput(InputRecording recording) {
+        this.recording = recording;
+        tick = -1;
+        desyncTick = -1;
+    }
+    
+    public void advance() {
+        tick++;
+        input = tick < recording.getTickCount() ? recording.getInput(tick) : 0;
+    }
+    
+    /**
+     * @return True if the tick just run has a recorded checksum.
+     */
+    public boolean isCheckpoint() {
+        return tick < recording.getTickCount() && recording.isCheckpoint(tick);
+    }
+    
+    /**
+     * Compares the checksum of the tick just run with the recording. Ticks
+     * that are not checkpoints always match. The first mismatch is logged and
+     * kept.
+     */
+    public boolean verify(int checksum) {
+        if (!isCheckpoint() || recording.getChecksum(tick) == checksum) {
+            return true;
+        }
+        
+        if (desyncTick == -1) {
+            desyncTick = tick;
+            Gdx.app.error(ReplayPlayerInput.class.getSimpleName(), "Replay desynchronized at tick " + tick);
+        }
+        return false;
+    }
+    
+    public boolean isFinished() {
+        return tick >= recording.getTickCount() - 1;
+    }
+    
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return The first checkpoint whose checksum did not match, or -1. The
+     * replay diverged at or after the checkpoint before it.
+     */
+    public int getDesyncTick() {
+        return desyncTick;
+    }
+
+    public InputRecording getRecording() {
+        return recording;
+    }
+
+    @Override
+    public boolean isJumpJustPressed() {
+        return (input & InputRecording.UP) != 0;
+    }
+
+    @Override
+    public boolean isLeftPressed() {
+        return (input & InputRecording.LEFT) != 0;
+    }
+
+    @Override
+    public boolean isRightPressed() {
+        return (input & InputRecording.RIGHT) != 0;
+    }
+}
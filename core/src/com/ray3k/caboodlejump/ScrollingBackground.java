@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * An endless background made of repeating texture layers. Each layer is drawn
+ * as one quad covering the view whose texture coordinates follow the camera,
+ * scaled by the layer's parallax factor. A factor of 1 scrolls with the world
+ * and 0 stays fixed to the screen. Layers are drawn in the order they were
+ * added, behind everything at a lower depth.
+ */
+public class ScrollingBackground implements Disposable {
+    private final Array<Layer> layers;
+    private int depth;
+
+    public ScrollingBackground(int depth) {
+        this.depth = depth;
+        layers = new Array<Layer>();
+    }
+    
+    /**
+     * Adds a layer. The texture must use repeat wrapping and is disposed with
+     * this background.
+     */
+    public Layer addLayer(Texture texture, float parallax) {
+        Layer layer = new Layer(texture, parallax);
+        layers.add(layer);
+        return layer;
+    }
+    
+    /**
+     * Adds one quad per layer covering {@code view}.
+     */
+    public void draw(RenderCommandBuffer buffer, Rectangle view) {
+        int previousDepth = buffer.getDepth();
+        for (int i = 0; i < layers.size; i++) {
+            Layer layer = layers.get(i);
+            Texture texture = layer.texture;
+            float u = view.x * layer.parallax / texture.getWidth();
+            float u2 = (view.x + view.width) * layer.parallax / texture.getWidth();
+            float v = -view.y * layer.parallax / texture.getHeight();
+            float v2 = -(view.y + view.height) * layer.parallax / texture.getHeight();
+            
+            float wrapU = (float) Math.floor(u);
+            float wrapV = (float) Math.floor(v2);
+            
+            buffer.setDepth(depth + layers.size - i);
+            buffer.setColor(layer.color);
+            buffer.draw(texture, view.x, view.y, view.width, view.height, u - wrapU, v - wrapV, u2 - wrapU, v2 - wrapV);
+        }
+        buffer.setColor(Color.WHITE);
+        buffer.setDepth(previousDepth);
+    }
+    
+    public Array<Layer> getLayers() {
+        return layers;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    public void dispose() {
+        for (Layer layer : layers) {
+            layer.texture.dispose();
+        }
+        layers.clear();
+    }
+    
+    /**
+     * Copies an unrotated region, such as one from an atlas page, into a
+     * texture of its own so that it can repeat.
+     */
+    public static Texture createRepeatingTexture(TextureRegion region) {
+        TextureData data = region.getTexture().getTextureData();
+        if (!data.isPrepared()) {
+            data.prepare();
+        }
+        Pixmap page = data.consumePixmap();
+        
+        Pixmap pixmap = new Pixmap(region.getRegionWidth(), region.getRegionHeight(), page.getFormat());
+        pixmap.drawPixmap(page, 0, 0, region.getRegionX(), region.getRegionY(), region.getRegionWidth(), region.getRegionHeight());
+        if (data.disposePixmap()) {
+            page.dispose();
+        }
+        
+        Texture texture = new Texture(pixmap);
+        texture.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+        texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        pixmap.dispose();
+        return texture;
+    }
+    
+    public static class Layer {
+        private final Texture texture;
+        private float parallax;
+        private final Color color;
+
+        private Layer(Texture texture, float parallax) {
+            this.texture = texture;
+            this.parallax = parallax;
+            color = new Color(Color.WHITE);
+        }
+
+        public Texture getTexture() {
+            return texture;
+        }
+
+        public float getParallax() {
+            return parallax;
+        }
+
+        public void setParallax(float parallax) {
+            this.parallax = parallax;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+    }
+}
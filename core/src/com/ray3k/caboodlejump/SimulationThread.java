@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs fixed ticks of the loaded state on a dedicated thread and publishes a
+ * {@link RenderSnapshot} after every batch of ticks. The thread ends by itself
+ * as soon as the state asks to change, so the render thread can perform the
+ * change and start it again.
+ */
+public class SimulationThread implements Runnable {
+    private final StateManager stateManager;
+    private final SnapshotBuffer snapshotBuffer;
+    private final GameLoop gameLoop;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile Throwable error;
+
+    public SimulationThread(StateManager stateManager, SnapshotBuffer snapshotBuffer, GameLoop gameLoop) {
+        this.stateManager = stateManager;
+        this.snapshotBuffer = snapshotBuffer;
+        this.gameLoop = gameLoop;
+    }
+    
+    public void start() {
+        if (thread == null) {
+            snapshotBuffer.clear();
+            gameLoop.start();
+            error = null;
+            running = true;
+            thread = new Thread(this, "Simulation");
+            thread.setDaemon(true);
+            stateManager.setSimulationThread(thread);
+            thread.start();
+        }
+    }
+    
+    public void stop() {
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+            stateManager.setSimulationThread(null);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running && !stateManager.isStatePending()) {
+                int steps = gameLoop.advance();
+                for (int i = 0; i < steps && !stateManager.isStatePending(); i++) {
+                    stateManager.act(gameLoop.getTickDuration(), gameLoop.getTickTime(i));
+                }
+                
+                if (steps > 0) {
+                    RenderSnapshot snapshot = snapshotBuffer.getWriteSnapshot();
+                    snapshot.begin(System.nanoTime());
+                    stateManager.capture(snapshot);
+                    snapshotBuffer.publish();
+                } else {
+                    LockSupport.parkNanos(gameLoop.getTickNanos() / 4);
+                }
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * @return The exception that ended the simulation thread, if any.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public GameLoop getGameLoop() {
+        return gameLoop;
+    }
+}
@@ -33,9 +33,17 @@ import com.badlogic.gdx.assets.loaders.FileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectMap.Entries;
+import com.badlogic.gdx.utils.ObjectMap.Entry;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
 import com.esotericsoftware.spine.SkeletonBinary;
 import com.esotericsoftware.spine.SkeletonData;
 import com.esotericsoftware.spine.SkeletonJson;
+import com.esotericsoftware.spine.attachments.AtlasAttachmentLoader;
+import com.esotericsoftware.spine.attachments.AttachmentLoader;
 
 /** {@link AssetLoader} for {@link SkeletonData} instances. 
  * Loads an exported Spine's skeleton data.
@@ -56,39 +64,140 @@ import com.esotericsoftware.spine.SkeletonJson;
  * @author Alvaro Barbeira */
 public class SkeletonDataLoader extends AsynchronousAssetLoader<SkeletonData, SkeletonDataLoader.SkeletonDataLoaderParameter> {
 
-	SkeletonData skeletonData;
+	private final AsyncExecutor executor;
+	private final ObjectMap<String, SkeletonDataLoaderParameter> queued;
+	private final ObjectMap<String, AsyncResult<SkeletonData>> parsing;
+	private final ObjectMap<String, SkeletonData> parsed;
 	
 	public SkeletonDataLoader( FileHandleResolver resolver) {
+		this(resolver, null);
+	}
+	
+	/**
+	 * @param executor Worker pool that parses skeletons queued with
+	 * {@link #load(AssetManager, String, SkeletonDataLoaderParameter)} in
+	 * parallel once their atlas has loaded. If null, each skeleton is parsed on
+	 * the AssetManager's thread when its turn comes.
+	 */
+	public SkeletonDataLoader( FileHandleResolver resolver, AsyncExecutor executor) {
 		super(resolver);
+		this.executor = executor;
+		queued = new ObjectMap<String, SkeletonDataLoaderParameter>();
+		parsing = new ObjectMap<String, AsyncResult<SkeletonData>>();
+		parsed = new ObjectMap<String, SkeletonData>();
+	}
+	
+	/**
+	 * Queues a skeleton with the AssetManager and remembers it, so that as soon
+	 * as any skeleton starts loading, every queued skeleton whose atlas is
+	 * available starts parsing on the worker pool.
+	 */
+	public void load(AssetManager manager, String fileName, SkeletonDataLoaderParameter parameter) {
+		synchronized (this) {
+			queued.put(fileName, parameter);
+		}
+		manager.load(fileName, SkeletonData.class, parameter);
+	}
+	
+	/**
+	 * Forgets queued and unclaimed skeletons. Call alongside
+	 * {@link AssetManager#clear()}.
+	 */
+	public synchronized void clear() {
+		queued.clear();
+		parsing.clear();
+		parsed.clear();
 	}
 
 	@Override
 	public void loadAsync( AssetManager manager, String fileName, FileHandle file, SkeletonDataLoaderParameter parameter) {
-		skeletonData = null;
-		TextureAtlas atlas = manager.get(parameter.atlasName, TextureAtlas.class);
+		TextureAtlas atlas = parameter.atlasName == null ? null : manager.get(parameter.atlasName, TextureAtlas.class);
+		SkeletonData skeletonData;
+		if (executor == null) {
+			skeletonData = parse(file, parameter, atlas);
+		} else {
+			AsyncResult<SkeletonData> result;
+			synchronized (this) {
+				queued.remove(fileName);
+				result = parsing.remove(fileName);
+				if (result == null) {
+					result = submit(file, parameter, atlas);
+				}
+				submitQueued(parameter.atlasName, atlas);
+			}
+			skeletonData = result.get();
+		}
+		
+		synchronized (this) {
+			parsed.put(fileName, skeletonData);
+		}
+	}
+
+	@Override
+	public SkeletonData loadSync( AssetManager manager, String fileName, FileHandle file, SkeletonDataLoaderParameter parameter) {
+		synchronized (this) {
+			return parsed.remove(fileName);
+		}
+	}
+	
+	/**
+	 * Starts parsing every queued skeleton that needs no atlas or the atlas
+	 * that has just been confirmed loaded.
+	 */
+	private void submitQueued(String atlasName, TextureAtlas atlas) {
+		Entries<String, SkeletonDataLoaderParameter> entries = queued.entries();
+		while (entries.hasNext()) {
+			Entry<String, SkeletonDataLoaderParameter> entry = entries.next();
+			if (entry.value.atlasName == null) {
+				parsing.put(entry.key, submit(resolve(entry.key), entry.value, null));
+				entries.remove();
+			} else if (entry.value.atlasName.equals(atlasName)) {
+				parsing.put(entry.key, submit(resolve(entry.key), entry.value, atlas));
+				entries.remove();
+			}
+		}
+	}
+	
+	private AsyncResult<SkeletonData> submit(final FileHandle file, final SkeletonDataLoaderParameter parameter, final TextureAtlas atlas) {
+		return executor.submit(new AsyncTask<SkeletonData>() {
+			@Override
+			public SkeletonData call() throws Exception {
+				return parse(file, parameter, atlas);
+			}
+		});
+	}
+	
+	/**
+	 * Parses one skeleton using only its arguments, so any number may run at
+	 * once. The atlas is only read.
+	 */
+	private static SkeletonData parse(FileHandle file, SkeletonDataLoaderParameter parameter, TextureAtlas atlas) {
+		AttachmentLoader attachmentLoader;
+		if (atlas == null) {
+			attachmentLoader = new NullAttachmentLoader();
+		} else {
+			attachmentLoader = new AtlasAttachmentLoader(atlas);
+		}
 		
 		String extension = file.extension();
 		if (extension.toLowerCase().equals("skel")) {
-			SkeletonBinary skeletonBinary = new SkeletonBinary(atlas);
+			SkeletonBinary skeletonBinary = new SkeletonBinary(attachmentLoader);
 			skeletonBinary.setScale(parameter.scale);
-			skeletonData = skeletonBinary.readSkeletonData(file);
+			return skeletonBinary.readSkeletonData(file);
 		} else {
-			SkeletonJson skeletonJson = new SkeletonJson(atlas);
+			SkeletonJson skeletonJson = new SkeletonJson(attachmentLoader);
 			skeletonJson.setScale(parameter.scale);
-			skeletonData = skeletonJson.readSkeletonData(file);			
+			return skeletonJson.readSkeletonData(file);
 		}
 	}
 
-	@Override
-	public SkeletonData loadSync( AssetManager manager, String fileName, FileHandle file, SkeletonDataLoaderParameter parameter) {
-		return skeletonData;
-	}
-
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public Array<AssetDescriptor> getDependencies( String fileName, FileHandle file, SkeletonDataLoaderParameter parameter) {
 		Array<AssetDescriptor> deps = new Array<AssetDescriptor>();
-		deps.add(new AssetDescriptor(parameter.atlasName, TextureAtlas.class));
+		if (parameter.atlasName != null) {
+			deps.add(new AssetDescriptor(parameter.atlasName, TextureAtlas.class));
+		}
 		return deps;
 	}
 	
@@ -97,7 +206,8 @@ public class SkeletonDataLoader extends AsynchronousAssetLoader<SkeletonData, Sk
 	 * This will insure the skeleton data is loaded correctly
      * @author mzechner */
     static public class SkeletonDataLoaderParameter extends AssetLoaderParameters<SkeletonData> {
-    	// A SkeletonJson must be loaded from an atlas.
+    	// A SkeletonJson must be loaded from an atlas. Without one, attachments
+    	// that need texture regions are skipped, which is enough for headless use.
     	public String atlasName;
     	public float  scale;
     	
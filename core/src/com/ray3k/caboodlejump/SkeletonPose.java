@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.esotericsoftware.spine.Bone;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.Slot;
+import com.esotericsoftware.spine.attachments.Attachment;
+
+/**
+ * Copy of a skeleton's world transforms, slot attachments and slot colors.
+ * The simulation thread captures it and the render thread applies it to its own
+ * skeleton, so the two threads never share a skeleton. Draw order is assumed
+ * to stay at the setup pose.
+ */
+public class SkeletonPose {
+    private float[] bones;
+    private Attachment[] attachments;
+    private float[] colors;
+    private int boneCount;
+    private int slotCount;
+
+    public SkeletonPose() {
+        bones = new float[0];
+        attachments = new Attachment[0];
+        colors = new float[0];
+    }
+    
+    public void capture(Skeleton skeleton) {
+        Array<Bone> skeletonBones = skeleton.getBones();
+        boneCount = skeletonBones.size;
+        if (bones.length < boneCount * 6) {
+            bones = new float[boneCount * 6];
+        }
+        for (int i = 0, j = 0; i < boneCount; i++, j += 6) {
+            Bone bone = skeletonBones.get(i);
+            bones[j] = bone.getA();
+            bones[j + 1] = bone.getB();
+            bones[j + 2] = bone.getC();
+            bones[j + 3] = bone.getD();
+            bones[j + 4] = bone.getWorldX();
+            bones[j + 5] = bone.getWorldY();
+        }
+        
+        Array<Slot> slots = skeleton.getSlots();
+        slotCount = slots.size;
+        if (attachments.length < slotCount) {
+            attachments = new Attachment[slotCount];
+            colors = new float[slotCount * 4];
+        }
+        for (int i = 0, j = 0; i < slotCount; i++, j += 4) {
+            Slot slot = slots.get(i);
+            attachments[i] = slot.getAttachment();
+            Color color = slot.getColor();
+            colors[j] = color.r;
+            colors[j + 1] = color.g;
+            colors[j + 2] = color.b;
+            colors[j + 3] = color.a;
+        }
+    }
+    
+    /**
+     * Poses a skeleton built from the same SkeletonData, translated by the
+     * given offset.
+     */
+    public void apply(Skeleton skeleton, float offsetX, float offsetY) {
+        Array<Bone> skeletonBones = skeleton.getBones();
+        for (int i = 0, j = 0; i < boneCount; i++, j += 6) {
+            Bone bone = skeletonBones.get(i);
+            bone.setA(bones[j]);
+            bone.setB(bones[j + 1]);
+            bone.setC(bones[j + 2]);
+            bone.setD(bones[j + 3]);
+            bone.setWorldX(bones[j + 4] + offsetX);
+            bone.setWorldY(bones[j + 5] + offsetY);
+        }
+        
+        Array<Slot> slots = skeleton.getSlots();
+        for (int i = 0, j = 0; i < slotCount; i++, j += 4) {
+            Slot slot = slots.get(i);
+            if (slot.getAttachment() != attachments[i]) {
+                slot.setAttachment(attachments[i]);
+            }
+            slot.getColor().set(colors[j], colors[j + 1], colors[j + 2], colors[j + 3]);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free triple buffer of {@link RenderSnapshot}s with one writer and one
+ * reader. The writer always has a snapshot to fill and the reader always gets
+ * the most recently published one; neither ever waits on the other.
+ */
+public class SnapshotBuffer {
+    private static final int INDEX_MASK = 3;
+    private static final int DIRTY = 4;
+    private final RenderSnapshot[] snapshots;
+    private final AtomicInteger ready;
+    private int writeIndex;
+    private int readIndex;
+
+    public SnapshotBuffer() {
+        snapshots = new RenderSnapshot[] {new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot()};
+        writeIndex = 0;
+        ready = new AtomicInteger(1);
+        readIndex = 2;
+    }
+    
+    /**
+     * Writer side. The returned snapshot stays private to the writer until
+     * {@link #publish()} is called.
+     */
+    public RenderSnapshot getWriteSnapshot() {
+        return snapshots[writeIndex];
+    }
+    
+    public void publish() {
+        writeIndex = ready.getAndSet(writeIndex | DIRTY) & INDEX_MASK;
+    }
+    
+    /**
+     * Reader side. Returns the latest published snapshot, or the previous one
+     * again if nothing new has been published.
+     */
+    public RenderSnapshot read() {
+        if ((ready.get() & DIRTY) != 0) {
+            readIndex = ready.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return snapshots[readIndex];
+    }
+    
+    /**
+     * Empties every snapshot. Only call this while no writer is running.
+     */
+    public void clear() {
+        ready.set(ready.get() & INDEX_MASK);
+        for (RenderSnapshot snapshot : snapshots) {
+            snapshot.begin(0);
+        }
+    }
+}
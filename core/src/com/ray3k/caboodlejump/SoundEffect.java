@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.caboodlejump;
+
+/**
+ * Typed handles for every sound effect, resolved to loaded sounds once by
+ * {@link AudioManager#resolve(com.badlogic.gdx.assets.AssetManager)}.
+ */
+public enum SoundEffect {
+    BREAK("/sfx/break.wav", 2, .27f),
+    FALL("/sfx/fall.wav", 2, .23f),
+    JUMP("/sfx/jump.wav", 2, .17f),
+    POINT("/sfx/point.wav", 3, .31f);
+    
+    private final String path;
+    private final int maxVoices;
+    private final float duration;
+
+    private SoundEffect(String path, int maxVoices, float duration) {
+        this.path = Core.DATA_PATH + path;
+        this.maxVoices = maxVoices;
+        this.duration = duration;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return How many instances of this sound may play at once.
+     */
+    public int getMaxVoices() {
+        return maxVoices;
+    }
+
+    /**
+     * @return The length of the sound in seconds, used to tell when a voice has
+     * finished.
+     */
+    public float getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Uniform grid broadphase for entity collision boxes. Entities are bucketed by
+ * the cells their collision box covers and only re-bucketed when that cell
+ * range changes.
+ */
+public class SpatialHash {
+    public static final float DEFAULT_CELL_SIZE = 128.0f;
+    private final float cellSize;
+    private final LongMap<Array<Entity>> cells;
+    private final Array<Array<Entity>> freeCells;
+    private int queryStamp;
+
+    public SpatialHash() {
+        this(DEFAULT_CELL_SIZE);
+    }
+    
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+        cells = new LongMap<Array<Entity>>();
+        freeCells = new Array<Array<Entity>>();
+        queryStamp = 0;
+    }
+    
+    public void insert(Entity entity) {
+        if (entity.inBroadphase) {
+            update(entity);
+        } else {
+            Rectangle box = entity.getCollisionBox();
+            entity.inBroadphase = true;
+            entity.cellMinX = cell(box.x);
+            entity.cellMinY = cell(box.y);
+            entity.cellMaxX = cell(box.x + box.width);
+            entity.cellMaxY = cell(box.y + box.height);
+            addToCells(entity);
+        }
+    }
+    
+    public void remove(Entity entity) {
+        if (entity.inBroadphase) {
+            removeFromCells(entity);
+            entity.inBroadphase = false;
+        }
+    }
+    
+    public void update(Entity entity) {
+        if (!entity.inBroadphase) {
+            return;
+        }
+        
+        Rectangle box = entity.getCollisionBox();
+        int minX = cell(box.x);
+        int minY = cell(box.y);
+        int maxX = cell(box.x + box.width);
+        int maxY = cell(box.y + box.height);
+        
+        if (minX != entity.cellMinX || minY != entity.cellMinY || maxX != entity.cellMaxX || maxY != entity.cellMaxY) {
+            removeFromCells(entity);
+            entity.cellMinX = minX;
+            entity.cellMinY = minY;
+            entity.cellMaxX = maxX;
+            entity.cellMaxY = maxY;
+            addToCells(entity);
+        }
+    }
+    
+    /**
+     * Collects every entity whose collision box overlaps the given entity's box
+     * and whose layer matches its mask. Each entity is reported at most once and
+     * the entity itself is never reported.
+     */
+    public void query(Entity entity, Array<Entity> results) {
+        results.clear();
+        queryStamp++;
+        entity.queryStamp = queryStamp;
+        collect(entity.getCollisionBox(), entity.getCollisionMask(), results);
+    }
+    
+    /**
+     * Collects every entity whose collision box overlaps the given area and whose
+     * layer matches the mask. Each entity is reported at most once.
+     */
+    public void query(Rectangle area, int mask, Array<Entity> results) {
+        results.clear();
+        queryStamp++;
+        collect(area, mask, results);
+    }
+    
+    private void collect(Rectangle area, int mask, Array<Entity> results) {
+        int minX = cell(area.x);
+        int minY = cell(area.y);
+        int maxX = cell(area.x + area.width);
+        int maxY = cell(area.y + area.height);
+        
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                Array<Entity> bucket = cells.get(key(x, y));
+                if (bucket != null) {
+                    for (int i = 0; i < bucket.size; i++) {
+                        Entity other = bucket.get(i);
+                        if (other.queryStamp != queryStamp) {
+                            other.queryStamp = queryStamp;
+                            if (!other.isDestroyed() && (other.getCollisionLayer() & mask) != 0 && area.overlaps(other.getCollisionBox())) {
+                                results.add(other);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    public void clear() {
+        for (Array<Entity> bucket : cells.values()) {
+            for (Entity entity : bucket) {
+                entity.inBroadphase = false;
+            }
+            bucket.clear();
+            freeCells.add(bucket);
+        }
+        cells.clear();
+    }
+    
+    public float getCellSize() {
+        return cellSize;
+    }
+    
+    private void addToCells(Entity entity) {
+        for (int x = entity.cellMinX; x <= entity.cellMaxX; x++) {
+            for (int y = entity.cellMinY; y <= entity.cellMaxY; y++) {
+                long key = key(x, y);
+                Array<Entity> bucket = cells.get(key);
+                if (bucket == null) {
+                    bucket = freeCells.size > 0 ? freeCells.pop() : new Array<Entity>(false, 8);
+                    cells.put(key, bucket);
+                }
+                bucket.add(entity);
+            }
+        }
+    }
+    
+    private void removeFromCells(Entity entity) {
+        for (int x = entity.cellMinX; x <= entity.cellMaxX; x++) {
+            for (int y = entity.cellMinY; y <= entity.cellMaxY; y++) {
+                long key = key(x, y);
+                Array<Entity> bucket = cells.get(key);
+                if (bucket != null) {
+                    bucket.removeValue(entity, true);
+                    if (bucket.size == 0) {
+                        cells.remove(key);
+                        freeCells.add(bucket);
+                    }
+                }
+            }
+        }
+    }
+    
+    private int cell(float value) {
+        return MathUtils.floor(value / cellSize);
+    }
+    
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
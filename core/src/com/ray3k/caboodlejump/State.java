@@ -42,4 +42,20 @@ public abstract class State {
     public Core getCore() {
         return core;
     }
+    
+    /**
+     * States that return true here can have {@link #act(float)} called from
+     * the simulation thread while they are drawn from snapshots on the render
+     * thread.
+     */
+    public boolean isThreadable() {
+        return false;
+    }
+    
+    public void capture(RenderSnapshot snapshot) {
+    }
+    
+    public void drawSnapshot(SpriteBatch spriteBatch, RenderSnapshot snapshot, float alpha) {
+        draw(spriteBatch, alpha);
+    }
 }
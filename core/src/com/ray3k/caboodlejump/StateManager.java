@@ -31,6 +31,9 @@ public class StateManager {
     private final ObjectMap<String, State> states;
     private State loadedState;
     private Core core;
+    private Thread simulationThread;
+    private volatile boolean statePending;
+    private String pendingState;
     
     public StateManager(Core core) {
         this.core = core;
@@ -47,10 +50,52 @@ public class StateManager {
         }
     }
     
+    /**
+     * Runs one tick of the loaded state with the input that has arrived so far.
+     */
     public void act(float delta) {
+        act(delta, System.nanoTime());
+    }
+    
+    /**
+     * Runs one tick of the loaded state with the input that arrived by
+     * {@code tickTime}, then hands the sounds it requested to the audio thread.
+     */
+    public void act(float delta, long tickTime) {
+        Profiler profiler = core.getProfiler();
+        profiler.begin(Profiler.TICK);
+        core.getInputManager().beginTick(tickTime);
         if (loadedState != null) {
             loadedState.act(delta);
         }
+        
+        if (core.getAudioManager() != null) {
+            profiler.begin(Profiler.TICK_AUDIO);
+            core.getAudioManager().flush();
+            profiler.end(Profiler.TICK_AUDIO);
+        }
+        profiler.end(Profiler.TICK);
+        profiler.commit(Profiler.TICK);
+    }
+    
+    public void capture(RenderSnapshot snapshot) {
+        Profiler profiler = core.getProfiler();
+        profiler.begin(Profiler.CAPTURE);
+        if (loadedState != null) {
+            loadedState.capture(snapshot);
+        }
+        profiler.end(Profiler.CAPTURE);
+        profiler.commit(Profiler.CAPTURE);
+    }
+    
+    public void drawSnapshot(SpriteBatch spriteBatch, RenderSnapshot snapshot, float alpha) {
+        if (loadedState != null) {
+            loadedState.drawSnapshot(spriteBatch, snapshot, alpha);
+        }
+    }
+    
+    public boolean isLoadedStateThreadable() {
+        return loadedState != null && loadedState.isThreadable();
     }
     
     public void dispose() {
@@ -59,7 +104,18 @@ public class StateManager {
         }
     }
     
+    /**
+     * Changes the loaded state. When called from the simulation thread the
+     * change is deferred until the render thread calls
+     * {@link #loadPendingState()}.
+     */
     public void loadState(String name) {
+        if (simulationThread != null && Thread.currentThread() == simulationThread) {
+            pendingState = name;
+            statePending = true;
+            return;
+        }
+        
         unloadState();
         
         if (name != null) {
@@ -90,6 +146,26 @@ public class StateManager {
         return states.get(name);
     }
 
+    public boolean isStatePending() {
+        return statePending;
+    }
+    
+    public void loadPendingState() {
+        if (statePending) {
+            statePending = false;
+            loadState(pendingState);
+            pendingState = null;
+        }
+    }
+
+    public void setSimulationThread(Thread simulationThread) {
+        this.simulationThread = simulationThread;
+    }
+
+    public State getLoadedState() {
+        return loadedState;
+    }
+
     void resize(int width, int height) {
         if (loadedState != null) {
             loadedState.resize(width, height);
@@ -24,19 +24,16 @@
 
 package com.ray3k.caboodlejump.entities;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.ray3k.caboodlejump.Entity;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
 import com.ray3k.caboodlejump.states.GameState;
 
 public class CameraControllerEntity extends Entity {
     private GameState gameState;
-    private int bgCounter;
 
     public CameraControllerEntity(GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
         this.gameState = gameState;
-        bgCounter = 0;
     }
     
     @Override
@@ -47,18 +44,8 @@ public class CameraControllerEntity extends Entity {
     @Override
     public void act(float delta) {
         gameState.getGameCamera().position.set(getX(), getY(), 0.0f);
-        int count = (int) (getY() / Gdx.graphics.getHeight()) + 1;
-        if (count > bgCounter) {
-            bgCounter = count;
-            BackgroundEntity bg = new BackgroundEntity(gameState);
-            bg.setPosition(0.0f, bgCounter * Gdx.graphics.getHeight());
-            bg.setWidth(Gdx.graphics.getWidth());
-            bg.setHeight(Gdx.graphics.getHeight());
-        }
-        
-        if (getY() + Gdx.graphics.getHeight() / 2.0f > gameState.getPlatformGoalY()) {
-            gameState.spawnPlatform(gameState.getPlatformGoalY());
-            gameState.setPlatformGoalY(gameState.getPlatformGoalY() + gameState.getPlatformSpacing());
+        while (getY() + getCore().getHeight() / 2.0f > gameState.getPlatformGoalY()) {
+            gameState.spawnNextPlatform();
         }
     }
 
@@ -67,7 +54,7 @@ public class CameraControllerEntity extends Entity {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderCommandBuffer buffer, float delta) {
     }
 
     @Override
@@ -30,8 +30,7 @@ public class FallingPlatformEntity extends PlatformEntity {
     private static final float PLATFORM_GRAVITY = 500.0f;
 
     public FallingPlatformEntity(final GameState gameState) {
-        super(gameState);
-        setSkin("falling");
+        super(gameState, "falling");
     }
 
     @Override
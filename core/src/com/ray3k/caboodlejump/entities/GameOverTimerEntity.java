@@ -24,8 +24,8 @@
 
 package com.ray3k.caboodlejump.entities;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.ray3k.caboodlejump.Entity;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
 import com.ray3k.caboodlejump.states.GameOverState;
 import com.ray3k.caboodlejump.states.GameState;
 
@@ -58,7 +58,7 @@ public class GameOverTimerEntity extends Entity {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderCommandBuffer buffer, float delta) {
     }
 
     @Override
@@ -24,7 +24,6 @@
 
 package com.ray3k.caboodlejump.entities;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.ray3k.caboodlejump.states.GameState;
@@ -36,9 +35,21 @@ public class MovingPlatformEntity extends PlatformEntity {
     private static final float PLATFORM_SPEED = 200.0f;
 
     public MovingPlatformEntity(final GameState gameState) {
-        super(gameState);
-        left = MathUtils.randomBoolean();
-        setSkin("moving");
+        super(gameState, "moving");
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        left = false;
+    }
+    
+    public boolean isMovingLeft() {
+        return left;
+    }
+
+    public void setMovingLeft(boolean left) {
+        this.left = left;
     }
 
     @Override
@@ -49,7 +60,7 @@ public class MovingPlatformEntity extends PlatformEntity {
         if (left) {
             targetX = 70.0f;
         } else {
-            targetX = Gdx.graphics.getWidth() - 70.0f;
+            targetX = getCore().getWidth() - 70.0f;
         }
         
         moveTowardsPoint(targetX, getY(), PLATFORM_SPEED, delta);
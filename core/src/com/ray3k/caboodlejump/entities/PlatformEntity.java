@@ -24,38 +24,45 @@
 
 package com.ray3k.caboodlejump.entities;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
-import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBounds;
-import com.esotericsoftware.spine.SkeletonData;
-import com.ray3k.caboodlejump.Core;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.Pool.Poolable;
+import com.ray3k.caboodlejump.BakedAnimation;
 import com.ray3k.caboodlejump.Entity;
+import com.ray3k.caboodlejump.EntitySnapshot;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
 import com.ray3k.caboodlejump.states.GameState;
 
-public class PlatformEntity extends Entity {
-    private Skeleton skeleton;
-    private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
+/**
+ * A platform playing the baked platform animation for its skin. Its state is
+ * a frame index and its position.
+ */
+public class PlatformEntity extends Entity implements Poolable {
+    private BakedAnimation animation;
+    private float time;
+    private int frame;
+    private final FloatArray landingPolygon;
+    private final Rectangle visualBounds;
     private GameState gameState;
     private boolean scored;
 
     public PlatformEntity(final GameState gameState) {
+        this(gameState, "platform");
+    }
+    
+    protected PlatformEntity(final GameState gameState, String skin) {
         super(gameState.getEntityManager(), gameState.getCore());
         this.gameState = gameState;
-        SkeletonData skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/platform.json", SkeletonData.class);
-        skeleton = new Skeleton(skeletonData);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(.25f);
-        animationState = new AnimationState(animationStateData);
-        animationState.setAnimation(0, "animation", true);
-        skeleton.setSkin("platform");
-        
-        skeletonBounds = new SkeletonBounds();
-        skeletonBounds.update(skeleton, true);
+        landingPolygon = new FloatArray();
+        visualBounds = new Rectangle();
+        setSkin(skin);
+        time = 0.0f;
+        frame = 0;
         scored = false;
+        
+        setCollisionLayer(GameState.LAYER_PLATFORM);
+        setCollisionMask(0);
+        setCheckingCollisions(true);
     }
     
     @Override
@@ -63,14 +70,25 @@ public class PlatformEntity extends Entity {
     }
     
     @Override
-    public void act(float delta) {
-        skeleton.setPosition(getX(), getY());
-        animationState.update(delta);
-        skeleton.updateWorldTransform();
-        animationState.apply(skeleton);
-        skeletonBounds.update(skeleton, true);
+    public void prepare(float delta) {
+        time += delta;
+        if (time >= animation.getDuration()) {
+            time %= animation.getDuration();
+        }
+        frame = animation.getFrame(time);
         
-        if (getY() < gameState.getCameraControllerEntity().getY() - Gdx.graphics.getHeight() / 2.0f) {
+        animation.getVisualBounds(frame, getX(), getY(), visualBounds);
+        setBounds(visualBounds.x, visualBounds.y, visualBounds.width, visualBounds.height);
+        
+        animation.getPolygon(frame, 0, getX(), getY(), landingPolygon);
+        animation.getBoundingBox(frame, getX(), getY(), getCollisionBox());
+        setCollisionBoxX(getCollisionBox().x - getX());
+        setCollisionBoxY(getCollisionBox().y - getY());
+    }
+    
+    @Override
+    public void act(float delta) {
+        if (getY() < gameState.getCameraControllerEntity().getY() - getCore().getHeight() / 2.0f) {
             dispose();
         }
     }
@@ -80,8 +98,19 @@ public class PlatformEntity extends Entity {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+    public void draw(RenderCommandBuffer buffer, float delta) {
+        animation.draw(buffer, frame, getX(), getY());
+    }
+
+    @Override
+    public void capture(EntitySnapshot snapshot) {
+        snapshot.setAnimation(animation);
+        snapshot.setFrame(frame);
+    }
+
+    @Override
+    public void drawSnapshot(RenderCommandBuffer buffer, EntitySnapshot snapshot, float alpha) {
+        snapshot.getAnimation().draw(buffer, snapshot.getFrame(), snapshot.getX(alpha), snapshot.getY(alpha));
     }
 
     @Override
@@ -91,13 +120,37 @@ public class PlatformEntity extends Entity {
     @Override
     public void collision(Entity other) {
     }
+
+    @Override
+    public void removed() {
+        gameState.getPlatformPool().free(this);
+    }
+
+    @Override
+    public void reset() {
+        setXspeed(0.0f);
+        setYspeed(0.0f);
+        setGravity(0.0f, 270.0f);
+        time = 0.0f;
+        frame = 0;
+        clearBounds();
+        scored = false;
+    }
     
     public void setSkin(String name) {
-        skeleton.setSkin(name);
+        animation = getCore().getBakedAnimation(name);
     }
 
-    public SkeletonBounds getSkeletonBounds() {
-        return skeletonBounds;
+    public BakedAnimation getAnimation() {
+        return animation;
+    }
+    
+    /**
+     * @return The platform's first bounding box polygon in world space, as of
+     * its last update.
+     */
+    public FloatArray getLandingPolygon() {
+        return landingPolygon;
     }
 
     public boolean isScored() {
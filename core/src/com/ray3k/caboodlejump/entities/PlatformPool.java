@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.entities;
+
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.ray3k.caboodlejump.states.GameState;
+
+/**
+ * Recycles platforms by type so that steady state play does not create new
+ * entities, landing polygons or visual bounds. Platforms free themselves once
+ * the {@link com.ray3k.caboodlejump.EntityManager} drops them.
+ */
+public class PlatformPool {
+    private final ObjectMap<Class<? extends PlatformEntity>, Pool<? extends PlatformEntity>> pools;
+
+    public PlatformPool(final GameState gameState) {
+        pools = new ObjectMap<Class<? extends PlatformEntity>, Pool<? extends PlatformEntity>>();
+        
+        pools.put(PlatformEntity.class, new Pool<PlatformEntity>() {
+            @Override
+            protected PlatformEntity newObject() {
+                return new PlatformEntity(gameState);
+            }
+        });
+        
+        pools.put(MovingPlatformEntity.class, new Pool<MovingPlatformEntity>() {
+            @Override
+            protected MovingPlatformEntity newObject() {
+                return new MovingPlatformEntity(gameState);
+            }
+        });
+        
+        pools.put(FallingPlatformEntity.class, new Pool<FallingPlatformEntity>() {
+            @Override
+            protected FallingPlatformEntity newObject() {
+                return new FallingPlatformEntity(gameState);
+            }
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T extends PlatformEntity> T obtain(Class<T> type) {
+        Pool<T> pool = (Pool<T>) pools.get(type);
+        T platform = pool.obtain();
+        platform.revive();
+        return platform;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void free(PlatformEntity platform) {
+        Pool<PlatformEntity> pool = (Pool<PlatformEntity>) pools.get(platform.getClass());
+        if (pool != null) {
+            pool.free(platform);
+        }
+    }
+    
+    public int getFree(Class<? extends PlatformEntity> type) {
+        return pools.get(type).getFree();
+    }
+    
+    public void clear() {
+        for (Pool<? extends PlatformEntity> pool : pools.values()) {
+            pool.clear();
+        }
+    }
+}
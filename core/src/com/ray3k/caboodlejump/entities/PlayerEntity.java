@@ -24,42 +24,56 @@
 
 package com.ray3k.caboodlejump.entities;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input.Keys;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.Intersector;
-import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
 import com.esotericsoftware.spine.AnimationState;
-import com.esotericsoftware.spine.AnimationStateData;
 import com.esotericsoftware.spine.Event;
 import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBounds;
 import com.esotericsoftware.spine.SkeletonData;
 import com.esotericsoftware.spine.attachments.BoundingBoxAttachment;
+import com.ray3k.caboodlejump.CachedSkeletonBounds;
 import com.ray3k.caboodlejump.Core;
 import com.ray3k.caboodlejump.Entity;
+import com.ray3k.caboodlejump.EntitySnapshot;
+import com.ray3k.caboodlejump.PolygonUtils;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
 import com.ray3k.caboodlejump.states.GameState;
 
 public class PlayerEntity extends Entity {
     private Skeleton skeleton;
+    private Skeleton renderSkeleton;
     private AnimationState animationState;
-    private SkeletonBounds skeletonBounds;
+    private CachedSkeletonBounds skeletonBounds;
+    private final Vector2 boundsOffset;
+    private final Vector2 boundsSize;
+    private final FloatArray boundsVertices;
     private GameState gameState;
     private boolean hit;
     private static final float CAMERA_MOVE_LINE = 550.0f;
-    private static final float MOVE_SPEED = 1400.0f;
-    private static final float FRICTION = 1200.0f;
+    /**
+     * Horizontal acceleration in pixels per second squared while left or right
+     * is held mid jump.
+     */
+    public static final float MOVE_SPEED = 1400.0f;
+    /**
+     * Horizontal deceleration in pixels per second squared while neither is
+     * held.
+     */
+    public static final float FRICTION = 1200.0f;
     private BoundingBoxAttachment horizontalBbox;
     private BoundingBoxAttachment landingBbox;
-    private Polygon tempPoly;
-    private Polygon tempPoly2;
+    private Rectangle landingArea;
+    private Array<Entity> platforms;
     private boolean jumping;
+    private final Runnable jumpAction;
 
     public PlayerEntity(final GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
         jumping = false;
-        tempPoly = new Polygon();
-        tempPoly2 = new Polygon();
+        landingArea = new Rectangle();
+        platforms = new Array<Entity>();
         setDepth(-100);
         this.gameState = gameState;
         SkeletonData skeletonData;
@@ -69,24 +83,32 @@ public class PlayerEntity extends Entity {
             skeletonData = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/Jump Bud.json", SkeletonData.class);
         }
         skeleton = new Skeleton(skeletonData);
-        AnimationStateData animationStateData = new AnimationStateData(skeletonData);
-        animationStateData.setDefaultMix(.25f);
-        animationState = new AnimationState(animationStateData);
+        renderSkeleton = new Skeleton(skeletonData);
+        animationState = new AnimationState(getCore().getAnimationStateData(skeletonData));
         animationState.setAnimation(0, "stand", true);
+        jumpAction = new Runnable() {
+            @Override
+            public void run() {
+                gameState.playJumpSound();
+                jumping = true;
+                setMotion(gameState.getJumpPower(), 90.0f);
+                setGravity(gameState.getGravity(), 270.0f);
+            }
+        };
         animationState.addListener(new AnimationState.AnimationStateAdapter() {
             @Override
             public void event(AnimationState.TrackEntry entry, Event event) {
                 if (event.getData().getName().equals("jump")) {
-                    gameState.playJumpSound();
-                    jumping = true;
-                    setMotion(gameState.getJumpPower(), 90.0f);
-                    setGravity(gameState.getGravity(), 270.0f);
+                    defer(jumpAction);
                 }
             }
             
         });
         
-        skeletonBounds = new SkeletonBounds();
+        boundsOffset = new Vector2();
+        boundsSize = new Vector2();
+        boundsVertices = new FloatArray();
+        skeletonBounds = new CachedSkeletonBounds();
         skeletonBounds.update(skeleton, true);
         hit = false;
         
@@ -104,71 +126,114 @@ public class PlayerEntity extends Entity {
     }
     
     @Override
-    public void act(float delta) {
+    public void prepare(float delta) {
         skeleton.setPosition(getX(), getY());
         animationState.update(delta);
         skeleton.updateWorldTransform();
         animationState.apply(skeleton);
         skeletonBounds.update(skeleton, true);
-        
-        if (animationState.getCurrent(0).getAnimation().getName().equals("stand")) {
-            if (Gdx.input.isKeyJustPressed(Keys.UP)) {
+        skeleton.getBounds(boundsOffset, boundsSize, boundsVertices);
+        setBounds(boundsOffset.x, boundsOffset.y, boundsSize.x, boundsSize.y);
+    }
+    
+    @Override
+    public void act(float delta) {
+        if (isStanding()) {
+            if (getCore().getPlayerInput().isJumpJustPressed()) {
                 animationState.setAnimation(0, "jump", false);
             }
         } else if (jumping) {
-            if (Gdx.input.isKeyPressed(Keys.LEFT)) {
+            if (getCore().getPlayerInput().isLeftPressed()) {
                 addMotion(MOVE_SPEED * delta, 180.0f);
-            } else if (Gdx.input.isKeyPressed(Keys.RIGHT)) {
+            } else if (getCore().getPlayerInput().isRightPressed()) {
                 addMotion(MOVE_SPEED * delta, 0.0f);
             } else {
                 setXspeed(approach(getXspeed(), 0.0f, FRICTION * delta));
             }
             
             if (getYspeed() < 0.0f) {
-                for (Entity entity : gameState.getEntityManager().getEntities()) {
-                    if (entity instanceof PlatformEntity) {
-                        PlatformEntity platform = (PlatformEntity) entity;
-                        
-                        tempPoly.setVertices(terminate(skeletonBounds.getPolygon(landingBbox).items, landingBbox.getWorldVerticesLength()));
-                        tempPoly2.setVertices(terminate(platform.getSkeletonBounds().getPolygon(platform.getSkeletonBounds().getBoundingBoxes().first()).items, platform.getSkeletonBounds().getBoundingBoxes().first().getWorldVerticesLength()));
-                        if (Intersector.overlapConvexPolygons(tempPoly, tempPoly2)) {
-                            platform.landed();
-                            setXspeed(0.0f);
-                            setYspeed(0.0f);
-                            setGravity(0.0f, 270.0f);
-                            animationState.setAnimation(0, "land", false);
-                            animationState.addAnimation(0, "jump", false, 0.0f);
-                            jumping = false;
-                            if (!platform.isScored()) {
-                                gameState.playPointSound();
-                                platform.setScored(true);
-                                gameState.addScore(1);
-                            }
-                            break;
-                        }
+                PlatformEntity platform = findLandingPlatform();
+                if (platform != null) {
+                    platform.landed();
+                    setXspeed(0.0f);
+                    setYspeed(0.0f);
+                    setGravity(0.0f, 270.0f);
+                    animationState.setAnimation(0, "land", false);
+                    animationState.addAnimation(0, "jump", false, 0.0f);
+                    jumping = false;
+                    if (!platform.isScored()) {
+                        gameState.playPointSound();
+                        platform.setScored(true);
+                        gameState.addScore(1);
                     }
                 }
             }
         }
 
-        if (getY() > gameState.getCameraControllerEntity().getY() - Gdx.graphics.getHeight() / 2.0f + CAMERA_MOVE_LINE) {
-            gameState.getCameraControllerEntity().addY(getY() - (gameState.getCameraControllerEntity().getY() - Gdx.graphics.getHeight() / 2.0f + CAMERA_MOVE_LINE));
-        } else if (getY() < gameState.getCameraControllerEntity().getY() - Gdx.graphics.getHeight() / 2.0f - 100) {
+        if (getY() > gameState.getCameraControllerEntity().getY() - getCore().getHeight() / 2.0f + CAMERA_MOVE_LINE) {
+            gameState.getCameraControllerEntity().addY(getY() - (gameState.getCameraControllerEntity().getY() - getCore().getHeight() / 2.0f + CAMERA_MOVE_LINE));
+        } else if (getY() < gameState.getCameraControllerEntity().getY() - getCore().getHeight() / 2.0f - 100) {
             new GameOverTimerEntity(gameState, 2.0f);
             gameState.playFallSound();
             dispose();
         }
         
-        tempPoly.setVertices(terminate(skeletonBounds.getPolygon(horizontalBbox).items, horizontalBbox.getWorldVerticesLength()));
-        if (tempPoly.getBoundingRectangle().x < 0) {
-            addX(-tempPoly.getBoundingRectangle().x);
+        FloatArray horizontalPolygon = skeletonBounds.getPolygon(horizontalBbox);
+        float minX = PolygonUtils.getMinX(horizontalPolygon.items, horizontalPolygon.size);
+        float maxX = PolygonUtils.getMaxX(horizontalPolygon.items, horizontalPolygon.size);
+        if (minX < 0) {
+            addX(-minX);
             setXspeed(0.0f);
-        } else if (tempPoly.getBoundingRectangle().x + tempPoly.getBoundingRectangle().width > Gdx.graphics.getWidth()) {
-            addX(-(tempPoly.getBoundingRectangle().x + tempPoly.getBoundingRectangle().width - Gdx.graphics.getWidth()));
+        } else if (maxX > getCore().getWidth()) {
+            addX(-(maxX - getCore().getWidth()));
             setXspeed(0.0f);
         }
     }
 
+    /**
+     * @return True while the player waits for the first jump of the game.
+     */
+    public boolean isStanding() {
+        return animationState.getCurrent(0).getAnimation().getName().equals("stand");
+    }
+
+    /**
+     * @return True while the player is in the air and can be steered.
+     */
+    public boolean isJumping() {
+        return jumping;
+    }
+
+    /**
+     * Bounds of the player's bounding boxes as of the last tick. Polygons are
+     * only recomputed when the pose changes and are otherwise translated.
+     */
+    public CachedSkeletonBounds getSkeletonBounds() {
+        return skeletonBounds;
+    }
+    
+    /**
+     * Returns the first platform overlapping the player's landing bounding box,
+     * or null if there is none.
+     */
+    public PlatformEntity findLandingPlatform() {
+        PlatformEntity returnValue = null;
+        FloatArray landingPolygon = skeletonBounds.getPolygon(landingBbox);
+        PolygonUtils.getBoundingRectangle(landingPolygon.items, landingPolygon.size, landingArea);
+        gameState.getEntityManager().query(landingArea, GameState.LAYER_PLATFORM, platforms);
+        for (int i = 0; i < platforms.size; i++) {
+            PlatformEntity platform = (PlatformEntity) platforms.get(i);
+            FloatArray platformPolygon = platform.getLandingPolygon();
+            
+            if (PolygonUtils.overlapConvexPolygons(landingPolygon.items, landingPolygon.size, platformPolygon.items, platformPolygon.size)) {
+                returnValue = platform;
+                break;
+            }
+        }
+        platforms.clear();
+        return returnValue;
+    }
+
     private float approach(float value, float goal, float increment) {
         if (value > goal) {
             value -= increment;
@@ -184,21 +249,24 @@ public class PlayerEntity extends Entity {
         return value;
     }
     
-    private float[] terminate(float[] values, int count) {
-        float[] returnValue = new float[count];
-        for (int i = 0; i < count; i++) {
-            returnValue[i] = values[i];
-        }
-        return returnValue;
-    }
-    
     @Override
     public void act_end(float delta) {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
-        getCore().getSkeletonRenderer().draw(spriteBatch, skeleton);
+    public void draw(RenderCommandBuffer buffer, float delta) {
+        buffer.draw(skeleton);
+    }
+
+    @Override
+    public void capture(EntitySnapshot snapshot) {
+        snapshot.getPose().capture(skeleton);
+    }
+
+    @Override
+    public void drawSnapshot(RenderCommandBuffer buffer, EntitySnapshot snapshot, float alpha) {
+        snapshot.getPose().apply(renderSkeleton, snapshot.getX(alpha) - snapshot.getX(), snapshot.getY(alpha) - snapshot.getY());
+        buffer.draw(renderSkeleton);
     }
 
     @Override
@@ -50,6 +50,10 @@ public class GameOverState extends State {
 
     @Override
     public void start() {
+        if (getCore().isHeadless()) {
+            return;
+        }
+        
         skin = getCore().getAssetManager().get(Core.DATA_PATH + "/ui/caboodle-jump-ui.json", Skin.class);
         
         stage = new Stage(new ScreenViewport());
@@ -67,6 +71,10 @@ public class GameOverState extends State {
 
     @Override
     public void act(float delta) {
+        if (stage == null) {
+            return;
+        }
+        
         stage.act(delta);
         
         if (Gdx.input.isKeyJustPressed(Keys.SPACE)) {
@@ -76,7 +84,10 @@ public class GameOverState extends State {
 
     @Override
     public void stop() {
-        stage.dispose();
+        if (stage != null) {
+            stage.dispose();
+            stage = null;
+        }
     }
 
     @Override
@@ -85,7 +96,9 @@ public class GameOverState extends State {
 
     @Override
     public void resize(int width, int height) {
-        stage.getViewport().update(width, height, true);
+        if (stage != null) {
+            stage.getViewport().update(width, height, true);
+        }
     }
 
     public int getScore() {
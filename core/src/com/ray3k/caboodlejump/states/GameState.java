@@ -24,48 +24,97 @@
 package com.ray3k.caboodlejump.states;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputMultiplexer;
-import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.ray3k.caboodlejump.Core;
 import com.ray3k.caboodlejump.EntityManager;
 import com.ray3k.caboodlejump.InputManager;
+import com.ray3k.caboodlejump.InputRecording;
+import com.ray3k.caboodlejump.JumpSolver;
+import com.ray3k.caboodlejump.PlatformChunk;
+import com.ray3k.caboodlejump.PlatformChunkGenerator;
+import com.ray3k.caboodlejump.PlayerInput;
+import com.ray3k.caboodlejump.Profiler;
+import com.ray3k.caboodlejump.ProfilerOverlay;
+import com.ray3k.caboodlejump.RandomStreams;
+import com.ray3k.caboodlejump.RecordingPlayerInput;
+import com.ray3k.caboodlejump.RenderCommandBuffer;
+import com.ray3k.caboodlejump.RenderSnapshot;
+import com.ray3k.caboodlejump.ReplayPlayerInput;
+import com.ray3k.caboodlejump.ScrollingBackground;
+import com.ray3k.caboodlejump.SoundEffect;
 import com.ray3k.caboodlejump.State;
-import com.ray3k.caboodlejump.entities.BackgroundEntity;
 import com.ray3k.caboodlejump.entities.CameraControllerEntity;
 import com.ray3k.caboodlejump.entities.FallingPlatformEntity;
 import com.ray3k.caboodlejump.entities.MovingPlatformEntity;
 import com.ray3k.caboodlejump.entities.PlatformEntity;
+import com.ray3k.caboodlejump.entities.PlatformPool;
 import com.ray3k.caboodlejump.entities.PlayerEntity;
 
 public class GameState extends State {
+    public static final int LAYER_PLATFORM = 1 << 1;
+    public static final String COSMETIC_STREAM = "cosmetic";
+    public static final String PLATFORM_STREAMS = "platforms";
+    public static final float PLATFORM_MIN_X = 70.0f;
+    public static final float PLATFORM_RIGHT_MARGIN = 140.0f;
+    public static final float MIN_PLATFORM_SPACING = 50.0f;
+    public static final float MAX_PLATFORM_SPACING = 800.0f;
+    public static final float MIN_GRAVITY = 100.0f;
+    public static final float MAX_GRAVITY = 2000.0f;
+    public static final float MIN_JUMP_POWER = 50.0f;
+    public static final float MAX_JUMP_POWER = 2000.0f;
+    private static final int PLATFORM_CHUNK_LOOKAHEAD = 3;
+    private static final int BACKGROUND_DEPTH = 100;
     private String selectedCharacter;
     private int score;
+    private int displayedScore;
     private static int highscore = 0;
     private OrthographicCamera gameCamera;
+    private OrthographicCamera renderCamera;
+    private Rectangle viewBounds;
+    private RenderCommandBuffer renderCommandBuffer;
+    private ScrollingBackground background;
     private Viewport gameViewport;
     private OrthographicCamera uiCamera;
     private Viewport uiViewport;
-    private InputManager inputManager;
+    private InputManager.KeyActionListener hotkeyListener;
     private Skin skin;
     private Stage stage;
     private Table table;
     private Label scoreLabel;
+    private ProfilerOverlay profilerOverlay;
     private EntityManager entityManager;
+    private PlatformPool platformPool;
     private float platformSpacing;
     private float gravity;
     private float jumpPower;
+    private boolean parallelUpdate;
     private CameraControllerEntity cameraControllerEntity;
+    private PlayerEntity playerEntity;
     private float platformGoalY;
+    private long seed;
+    private RandomStreams random;
+    private RandomXS128 cosmeticRandom;
+    private PlatformChunkGenerator platformGenerator;
+    private PlatformChunk platformChunk;
+    private int platformRow;
+    private PlayerInput playerInput;
+    private RecordingPlayerInput recordingInput;
+    private ReplayPlayerInput replayInput;
     
     public GameState(Core core) {
         super(core);
@@ -76,56 +125,109 @@ public class GameState extends State {
     
     @Override
     public void start() {
+        startInput();
+        getCore().finishLoadingGroup(Core.getCharacterGroup(selectedCharacter));
         score = 0;
-        
-        inputManager = new InputManager(); 
+        displayedScore = 0;
         
         uiCamera = new OrthographicCamera();
         uiViewport = new ScreenViewport(uiCamera);
-        uiViewport.update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        uiViewport.apply();
+        uiViewport.update(getCore().getWidth(), getCore().getHeight());
         
         uiCamera.position.set(uiCamera.viewportWidth / 2, uiCamera.viewportHeight / 2, 0);
         
         gameCamera = new OrthographicCamera();
         gameViewport = new ScreenViewport(gameCamera);
-        gameViewport.update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        gameViewport.apply();
+        gameViewport.update(getCore().getWidth(), getCore().getHeight());
         
         gameCamera.position.set(gameCamera.viewportWidth / 2, gameCamera.viewportHeight / 2, 0);
+        renderCamera = new OrthographicCamera();
+        viewBounds = new Rectangle();
+        renderCommandBuffer = new RenderCommandBuffer();
         
-        skin = getCore().getAssetManager().get(Core.DATA_PATH + "/ui/caboodle-jump-ui.json", Skin.class);
-        stage = new Stage(new ScreenViewport());
-        
-        InputMultiplexer inputMultiplexer = new InputMultiplexer();
-        inputMultiplexer.addProcessor(inputManager);
-        inputMultiplexer.addProcessor(stage);
-        Gdx.input.setInputProcessor(inputMultiplexer);
-        
-        table = new Table();
-        table.setFillParent(true);
-        stage.addActor(table);
-        
-        entityManager = new EntityManager();
+        if (!getCore().isHeadless()) {
+            uiViewport.apply();
+            gameViewport.apply();
+            
+            skin = getCore().getAssetManager().get(Core.DATA_PATH + "/ui/caboodle-jump-ui.json", Skin.class);
+            stage = new Stage(new ScreenViewport());
+
+            InputMultiplexer inputMultiplexer = new InputMultiplexer();
+            inputMultiplexer.addProcessor(getCore().getInputManager());
+            inputMultiplexer.addProcessor(stage);
+            Gdx.input.setInputProcessor(inputMultiplexer);
+            getCore().getInputManager().reset();
+
+            table = new Table();
+            table.setFillParent(true);
+            stage.addActor(table);
+        }
         
-        createStageElements();
+        entityManager = new EntityManager(getCore().isMotionStore());
+        entityManager.setForkJoinPool(parallelUpdate ? getCore().getForkJoinPool() : null);
+        entityManager.setProfiler(getCore().getProfiler());
+        platformPool = new PlatformPool(this);
         
-        BackgroundEntity backgroundEntity = new BackgroundEntity(this);
-        backgroundEntity.setWidth(Gdx.graphics.getWidth());
-        backgroundEntity.setHeight(Gdx.graphics.getHeight());
+        if (!getCore().isHeadless()) {
+            createStageElements();
+            
+            TextureAtlas atlas = getCore().getAssetManager().get(Core.DATA_PATH + "/spine/caboodle-jump.atlas", TextureAtlas.class);
+            background = new ScrollingBackground(BACKGROUND_DEPTH);
+            background.addLayer(ScrollingBackground.createRepeatingTexture(atlas.findRegion("bg")), 1.0f);
+        }
         
         cameraControllerEntity = new CameraControllerEntity(this);
-        cameraControllerEntity.setPosition(Gdx.graphics.getWidth() / 2.0f, Gdx.graphics.getHeight() / 2.0f);
+        cameraControllerEntity.setPosition(getCore().getWidth() / 2.0f, getCore().getHeight() / 2.0f);
         
-        PlayerEntity playerEntity = new PlayerEntity(this);
-        playerEntity.setPosition(Gdx.graphics.getWidth() / 2.0f, 0.0f);
+        playerEntity = new PlayerEntity(this);
+        playerEntity.setPosition(getCore().getWidth() / 2.0f, 0.0f);
         
-        for (float i = platformSpacing; i < Gdx.graphics.getHeight(); i += platformSpacing) {
-            spawnPlatform(i);
-            platformGoalY = i + platformSpacing;
+        JumpSolver solver = new JumpSolver(gravity, jumpPower);
+        platformGenerator = new PlatformChunkGenerator(random.split(PLATFORM_STREAMS), getCore().getGeneratorExecutor(), solver, playerEntity.getX(), PLATFORM_MIN_X, getCore().getWidth() - PLATFORM_RIGHT_MARGIN, platformSpacing, getCore().getHeight(), PLATFORM_CHUNK_LOOKAHEAD);
+        platformChunk = null;
+        platformRow = 0;
+        platformGoalY = platformSpacing;
+        while (platformGoalY < getCore().getHeight()) {
+            spawnNextPlatform();
         }
     }
     
+    /**
+     * Picks the seed, character, stage settings and update mode, from the
+     * replay if there is one, and swaps in the recording or replaying input.
+     */
+    private void startInput() {
+        playerInput = getCore().getPlayerInput();
+        recordingInput = null;
+        replayInput = null;
+        
+        if (getCore().getReplayPath() != null) {
+            InputRecording recording = InputRecording.load(Gdx.files.local(getCore().getReplayPath()));
+            seed = recording.getSeed();
+            selectedCharacter = recording.getCharacter();
+            platformSpacing = recording.getPlatformSpacing();
+            gravity = recording.getGravity();
+            jumpPower = recording.getJumpPower();
+            parallelUpdate = recording.isParallelUpdate();
+            replayInput = new ReplayPlayerInput(recording);
+            getCore().setPlayerInput(replayInput);
+            getCore().setTimeScale(getCore().getReplaySpeed());
+        } else {
+            seed = getCore().getSeed() != null ? getCore().getSeed() : TimeUtils.nanoTime();
+            parallelUpdate = getCore().isParallelUpdate();
+            if (getCore().getRecordPath() != null) {
+                InputRecording recording = new InputRecording(seed, selectedCharacter, getCore().getWidth(), getCore().getHeight());
+                recording.setSettings(platformSpacing, gravity, jumpPower);
+                recording.setParallelUpdate(parallelUpdate);
+                recordingInput = new RecordingPlayerInput(playerInput, recording);
+                getCore().setPlayerInput(recordingInput);
+            }
+        }
+        
+        random = new RandomStreams(seed);
+        cosmeticRandom = random.get(COSMETIC_STREAM);
+    }
+    
     private void createStageElements() {
         Table root = new Table();
         root.setFillParent(true);
@@ -133,6 +235,46 @@ public class GameState extends State {
         
         scoreLabel = new Label("0", skin);
         root.add(scoreLabel).expandY().padTop(25.0f).top();
+        
+        profilerOverlay = new ProfilerOverlay(getCore().getProfiler(), skin);
+        profilerOverlay.setRenderCommandBuffer(renderCommandBuffer);
+        profilerOverlay.setInputManager(getCore().getInputManager());
+        profilerOverlay.setVisible(getCore().getProfiler().isEnabled());
+        stage.addActor(profilerOverlay);
+        
+        hotkeyListener = new InputManager.KeyActionListener() {
+            @Override
+            public void keyPressed(int key) {
+                if (key == Keys.F3) {
+                    toggleProfiler();
+                } else if (key == Keys.F4) {
+                    dumpProfile();
+                }
+            }
+        };
+        getCore().getInputManager().addKeyActionListener(hotkeyListener);
+    }
+    
+    /**
+     * Shows or hides the profiler overlay. The profiler only collects samples
+     * while the overlay is visible.
+     */
+    public void toggleProfiler() {
+        Profiler profiler = getCore().getProfiler();
+        profiler.setEnabled(!profiler.isEnabled());
+        if (profilerOverlay != null) {
+            profilerOverlay.setVisible(profiler.isEnabled());
+        }
+    }
+    
+    /**
+     * Writes the current profiler statistics to a CSV file in the local
+     * directory.
+     */
+    public void dumpProfile() {
+        FileHandle file = Gdx.files.local("profile-" + System.currentTimeMillis() + ".csv");
+        getCore().getProfiler().writeCsv(file);
+        Gdx.app.log(GameState.class.getName(), "Wrote profile to " + file.path());
     }
     
     @Override
@@ -142,18 +284,104 @@ public class GameState extends State {
         
         gameCamera.update();
         spriteBatch.setProjectionMatrix(gameCamera.combined);
+        Profiler profiler = getCore().getProfiler();
         spriteBatch.begin();
-        entityManager.draw(spriteBatch, delta);
+        profiler.begin(Profiler.FRAME_ENTITIES);
+        Rectangle view = updateViewBounds(gameCamera);
+        background.draw(renderCommandBuffer, view);
+        entityManager.draw(renderCommandBuffer, delta, view);
+        profiler.end(Profiler.FRAME_ENTITIES);
+        profiler.begin(Profiler.FRAME_SUBMIT);
+        renderCommandBuffer.submit(spriteBatch);
         spriteBatch.end();
+        profiler.end(Profiler.FRAME_SUBMIT);
         
+        updateScoreLabel();
+        profiler.begin(Profiler.FRAME_STAGE);
         stage.draw();
+        profiler.end(Profiler.FRAME_STAGE);
+    }
+
+    /**
+     * Sets the view rectangle used for culling to the area visible through
+     * the given orthographic camera.
+     */
+    private Rectangle updateViewBounds(OrthographicCamera camera) {
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        viewBounds.set(camera.position.x - width / 2.0f, camera.position.y - height / 2.0f, width, height);
+        return viewBounds;
     }
 
     @Override
     public void act(float delta) {
+        if (getCore().getBot() != null && replayInput == null) {
+            getCore().getBot().update(this, delta);
+        }
+        
+        if (replayInput != null) {
+            replayInput.advance();
+        } else if (recordingInput != null) {
+            recordingInput.sample();
+        }
+        
         entityManager.act(delta);
         
-        stage.act(delta);
+        if (replayInput != null) {
+            if (replayInput.isCheckpoint()) {
+                replayInput.verify(checksum());
+            }
+        } else if (recordingInput != null) {
+            if (recordingInput.isCheckpoint()) {
+                recordingInput.record(checksum());
+            } else {
+                recordingInput.record();
+            }
+        }
+        
+        if (stage != null && !getCore().isThreadedSimulation()) {
+            stage.act(delta);
+        }
+    }
+
+    @Override
+    public boolean isThreadable() {
+        return true;
+    }
+
+    @Override
+    public void capture(RenderSnapshot snapshot) {
+        snapshot.setCamera(cameraControllerEntity.getPreviousX(), cameraControllerEntity.getPreviousY(), cameraControllerEntity.getX(), cameraControllerEntity.getY());
+        entityManager.capture(snapshot);
+    }
+
+    @Override
+    public void drawSnapshot(SpriteBatch spriteBatch, RenderSnapshot snapshot, float alpha) {
+        Gdx.gl.glClearColor(0.0f, 0.0f, 0.0f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        
+        renderCamera.viewportWidth = gameCamera.viewportWidth;
+        renderCamera.viewportHeight = gameCamera.viewportHeight;
+        renderCamera.position.set(snapshot.getCameraX(alpha), snapshot.getCameraY(alpha), 0.0f);
+        renderCamera.update();
+        spriteBatch.setProjectionMatrix(renderCamera.combined);
+        Profiler profiler = getCore().getProfiler();
+        spriteBatch.begin();
+        profiler.begin(Profiler.FRAME_ENTITIES);
+        Rectangle view = updateViewBounds(renderCamera);
+        background.draw(renderCommandBuffer, view);
+        entityManager.drawSnapshot(renderCommandBuffer, snapshot, alpha, view);
+        profiler.end(Profiler.FRAME_ENTITIES);
+        profiler.begin(Profiler.FRAME_SUBMIT);
+        renderCommandBuffer.submit(spriteBatch);
+        spriteBatch.end();
+        profiler.end(Profiler.FRAME_SUBMIT);
+        
+        updateScoreLabel();
+        profiler.begin(Profiler.FRAME_STAGE);
+        stage.act(Gdx.graphics.getDeltaTime());
+        stage.draw();
+        profiler.end(Profiler.FRAME_STAGE);
     }
 
     @Override
@@ -162,7 +390,40 @@ public class GameState extends State {
 
     @Override
     public void stop() {
-        stage.dispose();
+        if (stage != null) {
+            stage.dispose();
+            stage = null;
+        }
+        profilerOverlay = null;
+        if (hotkeyListener != null) {
+            getCore().getInputManager().removeKeyActionListener(hotkeyListener);
+            hotkeyListener = null;
+        }
+        if (background != null) {
+            background.dispose();
+            background = null;
+        }
+        if (platformGenerator != null) {
+            platformGenerator.cancel();
+            platformGenerator = null;
+        }
+        
+        if (recordingInput != null) {
+            recordingInput.getRecording().save(Gdx.files.local(getCore().getRecordPath()));
+            recordingInput = null;
+        }
+        if (replayInput != null) {
+            getCore().setTimeScale(1.0f);
+        }
+        getCore().setPlayerInput(playerInput);
+    }
+    
+    /**
+     * @return A hash of the world state compared between a recording and its
+     * replay after every checkpoint tick.
+     */
+    public int checksum() {
+        return 31 * entityManager.checksum() + score;
     }
     
     @Override
@@ -172,7 +433,9 @@ public class GameState extends State {
         
         uiViewport.update(width, height);
         uiCamera.position.set(uiCamera.viewportWidth / 2, uiCamera.viewportHeight / 2, 0);
-        stage.getViewport().update(width, height, true);
+        if (stage != null) {
+            stage.getViewport().update(width, height, true);
+        }
     }
 
     public String getSelectedCharacter() {
@@ -183,12 +446,46 @@ public class GameState extends State {
         this.selectedCharacter = selectedCharacter;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The random streams of the current game. They belong to the
+     * thread running the simulation.
+     */
+    public RandomStreams getRandom() {
+        return random;
+    }
+
+    /**
+     * @return The stream for choices that do not affect gameplay.
+     */
+    public RandomXS128 getCosmeticRandom() {
+        return cosmeticRandom;
+    }
+
+    /**
+     * @return The replay driving this game, or null.
+     */
+    public ReplayPlayerInput getReplayInput() {
+        return replayInput;
+    }
+
     public EntityManager getEntityManager() {
         return entityManager;
     }
 
+    public RenderCommandBuffer getRenderCommandBuffer() {
+        return renderCommandBuffer;
+    }
+
+    public PlatformPool getPlatformPool() {
+        return platformPool;
+    }
+
     public InputManager getInputManager() {
-        return inputManager;
+        return getCore().getInputManager();
     }
 
     public int getScore() {
@@ -197,7 +494,6 @@ public class GameState extends State {
 
     public void setScore(int score) {
         this.score = score;
-        scoreLabel.setText(Integer.toString(score));
         if (score > highscore) {
             highscore = score;
         }
@@ -205,26 +501,52 @@ public class GameState extends State {
     
     public void addScore(int score) {
         this.score += score;
-        scoreLabel.setText(Integer.toString(this.score));
         if (this.score > highscore) {
             highscore = this.score;
         }
     }
     
+    /**
+     * Updates the label on the render thread, since the score may be changed
+     * from the simulation thread.
+     */
+    private void updateScoreLabel() {
+        if (scoreLabel != null && displayedScore != score) {
+            displayedScore = score;
+            scoreLabel.setText(Integer.toString(displayedScore));
+        }
+    }
+    
     public void playBreakSound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/break.wav", Sound.class).play(.5f);
+        if (!getCore().isHeadless()) {
+            getCore().getAudioManager().play(SoundEffect.BREAK, .5f);
+        }
     }
     
     public void playFallSound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/fall.wav", Sound.class).play(.5f);
+        if (!getCore().isHeadless()) {
+            getCore().getAudioManager().play(SoundEffect.FALL, .5f);
+        }
     }
     
     public void playJumpSound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/jump.wav", Sound.class).play(.5f);
+        if (!getCore().isHeadless()) {
+            getCore().getAudioManager().play(SoundEffect.JUMP, .5f);
+        }
     }
     
     public void playPointSound() {
-        getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/point.wav", Sound.class).play(.5f);
+        if (!getCore().isHeadless()) {
+            getCore().getAudioManager().play(SoundEffect.POINT, .5f);
+        }
+    }
+
+    /**
+     * @return The width of the strip platforms are placed in on a screen
+     * {@code width} pixels wide.
+     */
+    public static float getPlatformRange(float width) {
+        return width - PLATFORM_RIGHT_MARGIN - PLATFORM_MIN_X;
     }
 
     public float getPlatformSpacing() {
@@ -268,22 +590,52 @@ public class GameState extends State {
         this.cameraControllerEntity = cameraControllerEntity;
     }
     
-    public void spawnPlatform(float y) {
-        float x = MathUtils.random(70.0f, Gdx.graphics.getWidth() - 140.0f);
+    public PlayerEntity getPlayerEntity() {
+        return playerEntity;
+    }
+    
+    /**
+     * Spawns the next row of the generated layout and moves the platform goal
+     * to the row after it. Chunks are generated ahead in the background, so
+     * this only instantiates data that is already there.
+     */
+    public PlatformEntity spawnNextPlatform() {
+        if (platformChunk == null || platformRow == platformChunk.getSize()) {
+            platformChunk = platformGenerator.next();
+            platformRow = 0;
+        }
+        
+        int row = platformRow++;
+        PlatformEntity platform = spawnPlatform(platformChunk.getX(row), platformChunk.getY(row), platformChunk.getType(row), platformChunk.isMovingLeft(row));
+        platformGoalY = platformChunk.getY(row) + platformSpacing;
+        return platform;
+    }
+    
+    /**
+     * @param type {@link PlatformChunk#PLAIN}, {@link PlatformChunk#MOVING}
+     * or {@link PlatformChunk#FALLING}.
+     */
+    public PlatformEntity spawnPlatform(float x, float y, int type, boolean movingLeft) {
         PlatformEntity platform;
-        int selection = MathUtils.random(0, 2);
-        switch (selection) {
-            case 0:
-                platform = new PlatformEntity(this);
+        switch (type) {
+            case PlatformChunk.PLAIN:
+                platform = platformPool.obtain(PlatformEntity.class);
                 break;
-            case 1:
-                platform = new MovingPlatformEntity(this);
+            case PlatformChunk.MOVING:
+                MovingPlatformEntity movingPlatform = platformPool.obtain(MovingPlatformEntity.class);
+                movingPlatform.setMovingLeft(movingLeft);
+                platform = movingPlatform;
                 break;
             default:
-                platform = new FallingPlatformEntity(this);
+                platform = platformPool.obtain(FallingPlatformEntity.class);
                 break;
         }
         platform.setPosition(x, y);
+        return platform;
+    }
+    
+    public PlatformChunkGenerator getPlatformGenerator() {
+        return platformGenerator;
     }
 
     public float getPlatformGoalY() {
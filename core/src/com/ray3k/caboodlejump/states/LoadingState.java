@@ -83,6 +83,8 @@ public class LoadingState extends State {
                     if (nextState != null) {
                         finishedLoading = true;
                         packPixmaps();
+                        getCore().bakeAnimations();
+                        getCore().getAudioManager().resolve(getCore().getAssetManager());
                         getCore().getStateManager().loadState(nextState);
                     }
                     return true;
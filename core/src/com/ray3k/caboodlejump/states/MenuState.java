@@ -24,7 +24,6 @@
 package com.ray3k.caboodlejump.states;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -39,12 +38,15 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Slider;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
+import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.ray3k.caboodlejump.Core;
+import com.ray3k.caboodlejump.JumpSolver;
+import com.ray3k.caboodlejump.SoundEffect;
 import com.ray3k.caboodlejump.State;
 
 public class MenuState extends State {
@@ -91,7 +93,7 @@ public class MenuState extends State {
         textButtton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/point.wav", Sound.class).play(.25f);
+                getCore().getAudioManager().play(SoundEffect.POINT, .25f);
                 showCharacterSelect();
             }
         });
@@ -103,19 +105,27 @@ public class MenuState extends State {
         textButtton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/point.wav", Sound.class).play(.25f);
+                getCore().getAudioManager().play(SoundEffect.POINT, .25f);
                 Gdx.app.exit();
             }
         });
     }
     
+    /**
+     * Selects a character and starts loading its skeleton in the background.
+     */
+    private void selectCharacter(String character) {
+        ((GameState)getCore().getStateManager().getState("game")).setSelectedCharacter(character);
+        getCore().loadGroup(Core.getCharacterGroup(character));
+    }
+    
     private void showCharacterSelect() {
-        ((GameState)getCore().getStateManager().getState("game")).setSelectedCharacter("rex");
+        selectCharacter("rex");
         Dialog dialog = new Dialog("", skin) {
             @Override
             protected void result(Object object) {
                 super.result(object);
-                getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/point.wav", Sound.class).play(.25f);
+                getCore().getAudioManager().play(SoundEffect.POINT, .25f);
                 showStageOptions();
             }
             
@@ -133,7 +143,7 @@ public class MenuState extends State {
         imageTextButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                ((GameState)getCore().getStateManager().getState("game")).setSelectedCharacter("rex");
+                selectCharacter("rex");
             }
         });
         
@@ -145,7 +155,7 @@ public class MenuState extends State {
         imageTextButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                ((GameState)getCore().getStateManager().getState("game")).setSelectedCharacter("rose");
+                selectCharacter("rose");
             }
         });
         
@@ -154,13 +164,38 @@ public class MenuState extends State {
         dialog.show(stage);
     }
     
+    /**
+     * Reads a seed typed in the menu. Numbers are used as they are, any other
+     * text is hashed and blank text means a random seed.
+     */
+    private static Long parseSeed(String text) {
+        text = text.trim();
+        if (text.length() == 0) {
+            return null;
+        }
+        
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return (long) text.hashCode();
+        }
+    }
+    
     private void showStageOptions() {
         final GameState gameState = (GameState) getCore().getStateManager().getState("game");
+        final TextField seedField = new TextField(getCore().getSeed() == null ? "" : Long.toString(getCore().getSeed()), skin);
         Dialog dialog = new Dialog("", skin) {
             @Override
             protected void result(Object object) {
                 super.result(object);
-                getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/point.wav", Sound.class).play(.25f);
+                getCore().getAudioManager().play(SoundEffect.POINT, .25f);
+                getCore().setSeed(parseSeed(seedField.getText()));
+                for (String character : Core.CHARACTERS) {
+                    if (!character.equals(gameState.getSelectedCharacter())) {
+                        getCore().unloadGroup(Core.getCharacterGroup(character));
+                    }
+                }
+                getCore().finishLoadingGroup(Core.getCharacterGroup(gameState.getSelectedCharacter()));
                 getCore().getStateManager().loadState("game");
             }
             
@@ -170,12 +205,15 @@ public class MenuState extends State {
         Label label = new Label("Stage settings...", skin, "title");
         dialog.getContentTable().add(label).colspan(2);
         
+        final Label difficultyLabel = new Label("", skin);
+        updateDifficultyLabel(difficultyLabel, gameState);
+        
         dialog.getContentTable().row();
         label = new Label("Platform Spacing", skin);
         dialog.getContentTable().add(label).colspan(2);
         
         dialog.getContentTable().row();
-        final Slider spacingSlider = new Slider(50, 800, 1, false, skin);
+        final Slider spacingSlider = new Slider(GameState.MIN_PLATFORM_SPACING, GameState.MAX_PLATFORM_SPACING, 1, false, skin);
         spacingSlider.setValue(gameState.getPlatformSpacing());
         dialog.getContentTable().add(spacingSlider).growX().padLeft(50.0f);
         
@@ -187,6 +225,7 @@ public class MenuState extends State {
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
                 spacingLabel.setText(Integer.toString((int) spacingSlider.getValue()));
                 gameState.setPlatformSpacing(spacingSlider.getValue());
+                updateDifficultyLabel(difficultyLabel, gameState);
             }
         });
         
@@ -195,7 +234,7 @@ public class MenuState extends State {
         dialog.getContentTable().add(label).colspan(2);
         
         dialog.getContentTable().row();
-        final Slider gravitySlider = new Slider(100, 2000, 1, false, skin);
+        final Slider gravitySlider = new Slider(GameState.MIN_GRAVITY, GameState.MAX_GRAVITY, 1, false, skin);
         gravitySlider.setValue(gameState.getGravity());
         dialog.getContentTable().add(gravitySlider).growX().padLeft(50.0f);
         
@@ -207,6 +246,7 @@ public class MenuState extends State {
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
                 gravityLabel.setText(Integer.toString((int) gravitySlider.getValue()));
                 gameState.setGravity(gravitySlider.getValue());
+                updateDifficultyLabel(difficultyLabel, gameState);
             }
         });
         
@@ -215,7 +255,7 @@ public class MenuState extends State {
         dialog.getContentTable().add(label).colspan(2);
         
         dialog.getContentTable().row();
-        final Slider jumpPowerSlider = new Slider(50, 2000, 1, false, skin);
+        final Slider jumpPowerSlider = new Slider(GameState.MIN_JUMP_POWER, GameState.MAX_JUMP_POWER, 1, false, skin);
         jumpPowerSlider.setValue(gameState.getJumpPower());
         dialog.getContentTable().add(jumpPowerSlider).growX().padLeft(50.0f);
         
@@ -227,14 +267,40 @@ public class MenuState extends State {
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
                 jumpPowerLabel.setText(Integer.toString((int) jumpPowerSlider.getValue()));
                 gameState.setJumpPower(jumpPowerSlider.getValue());
+                updateDifficultyLabel(difficultyLabel, gameState);
             }
         });
         
+        dialog.getContentTable().row();
+        dialog.getContentTable().add(difficultyLabel).colspan(2);
+        
+        dialog.getContentTable().row();
+        label = new Label("Seed", skin);
+        dialog.getContentTable().add(label).colspan(2);
+        
+        dialog.getContentTable().row();
+        seedField.setMessageText("random");
+        seedField.setAlignment(Align.center);
+        dialog.getContentTable().add(seedField).colspan(2).width(300.0f);
+        
         dialog.button("OK");
         
         dialog.show(stage);
     }
     
+    /**
+     * Shows how hard the chosen stage settings are, from the jump solver.
+     */
+    private void updateDifficultyLabel(Label label, GameState gameState) {
+        JumpSolver solver = new JumpSolver(gameState.getGravity(), gameState.getJumpPower());
+        if (solver.getReach(gameState.getPlatformSpacing()) < 0.0f) {
+            label.setText("Difficulty: impossible");
+        } else {
+            float difficulty = solver.getDifficulty(gameState.getPlatformSpacing(), GameState.getPlatformRange(getCore().getWidth()));
+            label.setText("Difficulty: " + Math.round(difficulty * 100.0f) + "%");
+        }
+    }
+    
     @Override
     public void draw(SpriteBatch spriteBatch, float delta) {
         Gdx.gl.glClearColor(0, 0, 0, 1);
@@ -244,6 +310,7 @@ public class MenuState extends State {
 
     @Override
     public void act(float delta) {
+        getCore().getAssetManager().update();
         stage.act(delta);
     }
 
@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.ray3k.caboodlejump.entities.PlatformEntity;
+import com.ray3k.caboodlejump.entities.PlayerEntity;
+import com.ray3k.caboodlejump.states.GameState;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks with the thread's allocation counter that steady state ticks and the
+ * player's landing check allocate nothing once warmed up. Runs a headless
+ * {@link Core} whose backend is left idle, so the test thread drives every
+ * tick itself. An expert {@link BotPlayer} plays, so the measured ticks jump,
+ * fall, steer and land, and spawn and recycle platforms as the camera climbs.
+ */
+public class AllocationTest {
+    private static final int WARMUP_TICKS = 2000;
+    private static final int TICKS = 2000;
+    private static Core core;
+    private GameState gameState;
+    private BotPlayer bot;
+    private PlayerInput playerInput;
+    
+    @BeforeClass
+    public static void boot() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        core = new Core(true);
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 1.0f;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                core.create();
+                latch.countDown();
+            }
+
+            @Override
+            public void dispose() {
+                core.dispose();
+            }
+        }, config);
+        latch.await();
+    }
+    
+    @After
+    public void removeBot() {
+        core.setBot(null);
+        core.setPlayerInput(playerInput);
+    }
+    
+    @AfterClass
+    public static void shutdown() {
+        Gdx.app.exit();
+    }
+    
+    @Before
+    public void startGame() {
+        Assume.assumeTrue(getThreadMXBean().isThreadAllocatedMemorySupported());
+        getThreadMXBean().setThreadAllocatedMemoryEnabled(true);
+        
+        core.setSeed(0L);
+        playerInput = core.getPlayerInput();
+        bot = new BotPlayer(BotPlayer.Skill.EXPERT);
+        core.setBot(bot);
+        gameState = (GameState) core.getStateManager().getState("game");
+        gameState.setSelectedCharacter("rex");
+        core.getStateManager().loadState("game");
+    }
+    
+    @Test
+    public void gameplayTicksDoNotAllocate() {
+        StateManager stateManager = core.getStateManager();
+        float delta = core.getGameLoop().getTickDuration();
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            stateManager.act(delta);
+        }
+        int jumps = bot.getJumps();
+        int score = gameState.getScore();
+        
+        long start = getAllocatedBytes();
+        for (int i = 0; i < TICKS; i++) {
+            stateManager.act(delta);
+        }
+        long allocated = getAllocatedBytes() - start;
+        
+        assertSame("The game ended while measuring", gameState, stateManager.getLoadedState());
+        assertTrue("The bot did not jump while measuring", bot.getJumps() > jumps);
+        assertTrue("The bot did not land on a new platform while measuring", gameState.getScore() > score);
+        assertTrue(allocated + " bytes allocated in " + TICKS + " ticks", allocated < TICKS);
+    }
+    
+    @Test
+    public void landingCheckDoesNotAllocate() {
+        PlatformEntity platform = null;
+        Array<Entity> entities = gameState.getEntityManager().getEntities();
+        for (int i = 0; i < entities.size && platform == null; i++) {
+            if (entities.get(i) instanceof PlatformEntity) {
+                platform = (PlatformEntity) entities.get(i);
+            }
+        }
+        assertNotNull(platform);
+        
+        FloatArray polygon = platform.getLandingPolygon();
+        Rectangle landingArea = PolygonUtils.getBoundingRectangle(polygon.items, polygon.size, new Rectangle());
+        PlayerEntity player = gameState.getPlayerEntity();
+        player.setPosition(platform.getX(), landingArea.y + landingArea.height / 2.0f);
+        core.getStateManager().act(core.getGameLoop().getTickDuration());
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            player.findLandingPlatform();
+        }
+        
+        long start = getAllocatedBytes();
+        for (int i = 0; i < TICKS; i++) {
+            player.findLandingPlatform();
+        }
+        long allocated = getAllocatedBytes() - start;
+        assertTrue(allocated + " bytes allocated in " + TICKS + " landing checks", allocated < TICKS);
+    }
+    
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+    
+    private static long getAllocatedBytes() {
+        return getThreadMXBean().getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
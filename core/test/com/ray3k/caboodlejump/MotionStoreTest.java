@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.caboodlejump;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that keeping motion in a {@link MotionStore} does not change how a
+ * tick plays out, including for entities that read each other's positions,
+ * entities whose speed is changed by another before their turn and entities
+ * spawned partway through a tick.
+ */
+public class MotionStoreTest {
+    private static final int TICKS = 200;
+    private static final int SPAWN_TICK = 50;
+    private static final float DELTA = 0.01f;
+    
+    @Test
+    public void motionStoreMatchesEntityMotion() {
+        EntityManager plain = new EntityManager(false);
+        EntityManager stored = new EntityManager(true);
+        populate(plain);
+        populate(stored);
+        
+        for (int tick = 0; tick < TICKS; tick++) {
+            plain.act(DELTA);
+            stored.act(DELTA);
+            assertEquals("Tick " + tick, plain.checksum(), stored.checksum());
+        }
+    }
+    
+    @Test
+    public void spawnedEntityIntegratesOnItsFirstTick() {
+        EntityManager manager = new EntityManager(true);
+        populate(manager);
+        for (int tick = 0; tick <= SPAWN_TICK; tick++) {
+            manager.act(DELTA);
+        }
+        
+        Entity spawned = manager.getEntities().peek();
+        assertNotEquals(0.0f, spawned.getY(), 0.0f);
+        assertEquals(spawned.getY(), spawned.getCollisionBox().y, 0.0f);
+    }
+    
+    private void populate(EntityManager manager) {
+        Body leader = new Body(manager, null);
+        leader.setGravity(100.0f, 270.0f);
+        Body follower = new Body(manager, null);
+        follower.leader = leader;
+        follower.setPosition(50.0f, 0.0f);
+        follower.spawns = true;
+        Body trailer = new Body(manager, null);
+        trailer.leader = follower;
+        trailer.setPosition(-50.0f, 0.0f);
+        follower.pushes = trailer;
+    }
+    
+    /**
+     * Falls under gravity and steers towards a leader, which it sees moved or
+     * not depending on whether the leader came first in the tick. May also
+     * push another body, changing its speed before that body's turn.
+     */
+    private static class Body extends Entity {
+        private Body leader;
+        private Body pushes;
+        private boolean spawns;
+        private int ticks;
+
+        public Body(EntityManager manager, Core core) {
+            super(manager, core);
+        }
+
+        @Override
+        public void create() {
+        }
+
+        @Override
+        public void act(float delta) {
+            if (leader != null) {
+                setXspeed(leader.getX() - getX());
+                setYspeed(getYspeed() + (leader.getY() - getY()) * delta);
+            }
+            
+            if (pushes != null && ticks % 7 == 0) {
+                pushes.addXspeed(1.0f);
+            }
+            
+            if (spawns && ticks++ == SPAWN_TICK) {
+                Body spawned = new Body(getManager(), null);
+                spawned.setGravity(100.0f, 270.0f);
+                spawned.leader = this;
+            }
+        }
+
+        @Override
+        public void act_end(float delta) {
+        }
+
+        @Override
+        public void draw(RenderCommandBuffer buffer, float delta) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public void collision(Entity other) {
+        }
+    }
+}
@@ -2,13 +2,36 @@ package com.ray3k.caboodlejump.desktop;
 
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.ray3k.caboodlejump.BotPlayer;
 import com.ray3k.caboodlejump.Core;
+import java.util.Arrays;
+import java.util.Locale;
 
 public class DesktopLauncher {
 	public static void main (String[] arg) {
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
                 config.width = 800;
                 config.height = 800;
-		new LwjglApplication(new Core(), config);
+		Core core = new Core();
+		core.setThreadedSimulation(Arrays.asList(arg).contains("--threaded"));
+		core.setMotionStore(Arrays.asList(arg).contains("--motion-store"));
+		core.setParallelUpdate(Arrays.asList(arg).contains("--parallel"));
+		if (getOption(arg, "--seed") != null) {
+			core.setSeed(Long.parseLong(getOption(arg, "--seed")));
+		}
+		core.setRecordPath(getOption(arg, "--record"));
+		core.setReplayPath(getOption(arg, "--replay"));
+		if (getOption(arg, "--replay-speed") != null) {
+			core.setReplaySpeed(Float.parseFloat(getOption(arg, "--replay-speed")));
+		}
+		if (getOption(arg, "--bot") != null) {
+			core.setBot(new BotPlayer(BotPlayer.Skill.valueOf(getOption(arg, "--bot").toUpperCase(Locale.ROOT))));
+		}
+		new LwjglApplication(core, config);
+	}
+	
+	private static String getOption(String[] arg, String name) {
+		int index = Arrays.asList(arg).indexOf(name);
+		return index != -1 && index + 1 < arg.length ? arg[index + 1] : null;
 	}
 }
@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.ray3k.caboodlejump.BotPlayer;
+import com.ray3k.caboodlejump.DifficultyHeatmap;
+import com.ray3k.caboodlejump.ProgrammaticPlayerInput;
+import com.ray3k.caboodlejump.states.GameState;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Usage: HeadlessLauncher [ticks] [character] [seed]
+ * <br>
+ * or: HeadlessLauncher --bot easy|normal|expert [ticks] [character] [seed]
+ * <br>
+ * or: HeadlessLauncher --replay file
+ * <br>
+ * or: HeadlessLauncher --heatmap prefix [steps] [width]
+ */
+public class HeadlessLauncher {
+    public static void main(String[] arg) {
+        if (arg.length > 1 && arg[0].equals("--heatmap")) {
+            writeHeatmap(arg[1], arg.length > 2 ? Integer.parseInt(arg[2]) : 64, arg.length > 3 ? Integer.parseInt(arg[3]) : 800);
+            return;
+        }
+        
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0.0f;
+        
+        HeadlessSimulation simulation = new HeadlessSimulation();
+        if (arg.length > 1 && arg[0].equals("--replay")) {
+            simulation.setReplayPath(arg[1]);
+            new HeadlessApplication(simulation, config);
+            return;
+        }
+        
+        if (arg.length > 1 && arg[0].equals("--bot")) {
+            simulation.getCore().setBot(new BotPlayer(BotPlayer.Skill.valueOf(arg[1].toUpperCase(Locale.ROOT))));
+            arg = Arrays.copyOfRange(arg, 2, arg.length);
+        } else {
+            simulation.setController(new HeadlessSimulation.Controller() {
+                @Override
+                public void update(GameState gameState, ProgrammaticPlayerInput input, long tick) {
+                    input.setUp(tick % 2 == 0);
+                }
+            });
+        }
+        
+        simulation.setMaxTicks(arg.length > 0 ? Long.parseLong(arg[0]) : 100000);
+        if (arg.length > 1) {
+            simulation.setCharacter(arg[1]);
+        }
+        if (arg.length > 2) {
+            simulation.getCore().setSeed(Long.parseLong(arg[2]));
+        }
+        
+        new HeadlessApplication(simulation, config);
+    }
+    
+    /**
+     * Writes the difficulty of every stage setting on a screen {@code width}
+     * pixels wide to prefix.csv and prefix.png, with {@code steps} samples of
+     * each setting.
+     */
+    private static void writeHeatmap(String prefix, int steps, int width) {
+        GdxNativesLoader.load();
+        DifficultyHeatmap heatmap = DifficultyHeatmap.createStageSettingsMap(GameState.getPlatformRange(width), steps);
+        heatmap.compute();
+        System.out.println(steps * steps * steps + " settings in " + heatmap.getComputeNanos() / 1000000.0f + "ms");
+        
+        heatmap.writeCsv(new FileHandle(prefix + ".csv"));
+        Pixmap pixmap = heatmap.toPixmap();
+        PixmapIO.writePNG(new FileHandle(prefix + ".png"), pixmap);
+        pixmap.dispose();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.caboodlejump.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.ray3k.caboodlejump.BotPlayer;
+import com.ray3k.caboodlejump.Core;
+import com.ray3k.caboodlejump.InputRecording;
+import com.ray3k.caboodlejump.ProgrammaticPlayerInput;
+import com.ray3k.caboodlejump.ReplayPlayerInput;
+import com.ray3k.caboodlejump.StateManager;
+import com.ray3k.caboodlejump.states.GameState;
+
+/**
+ * Runs {@link GameState} without a display. Every frame of the headless
+ * backend runs a batch of fixed ticks back to back without consulting the
+ * {@link com.ray3k.caboodlejump.GameLoop} clock, so the simulation runs as
+ * fast as the CPU allows. Nothing is drawn, sound is stubbed and the player is
+ * driven through a {@link ProgrammaticPlayerInput}, or by the core's
+ * {@link com.ray3k.caboodlejump.BotPlayer} if it has one. A new game is
+ * started whenever the previous one ends.
+ * <p>
+ * With a replay set, a single recorded game is played back instead and the
+ * simulation finishes when it ends, reporting whether every tick matched the
+ * recorded checksum.
+ */
+public class HeadlessSimulation extends ApplicationAdapter {
+    private final Core core;
+    private final ProgrammaticPlayerInput input;
+    private Controller controller;
+    private String character;
+    private String replayPath;
+    private int ticksPerFrame;
+    private long maxTicks;
+    private long ticks;
+    private int games;
+    private long startTime;
+    private boolean running;
+    
+    public interface Controller {
+        public void update(GameState gameState, ProgrammaticPlayerInput input, long tick);
+    }
+
+    public HeadlessSimulation() {
+        core = new Core(true);
+        input = new ProgrammaticPlayerInput();
+        core.setPlayerInput(input);
+        character = "rex";
+        ticksPerFrame = 1000;
+        maxTicks = 0;
+    }
+
+    @Override
+    public void create() {
+        if (replayPath != null) {
+            InputRecording recording = InputRecording.load(Gdx.files.local(replayPath));
+            core.setSize(recording.getWidth(), recording.getHeight());
+            core.setReplayPath(replayPath);
+        }
+        core.create();
+        ticks = 0;
+        games = 0;
+        running = true;
+        startTime = TimeUtils.nanoTime();
+    }
+
+    @Override
+    public void render() {
+        for (int i = 0; i < ticksPerFrame && running; i++) {
+            step();
+        }
+    }
+    
+    public void step() {
+        StateManager stateManager = core.getStateManager();
+        GameState gameState = (GameState) stateManager.getState("game");
+        if (stateManager.getLoadedState() != gameState) {
+            if (replayPath != null && games > 0) {
+                finish();
+                return;
+            }
+            input.clear();
+            gameState.setSelectedCharacter(character);
+            stateManager.loadState("game");
+            games++;
+        }
+        
+        if (controller != null) {
+            controller.update(gameState, input, ticks);
+        }
+        stateManager.act(core.getGameLoop().getTickDuration());
+        input.advance();
+        ticks++;
+        
+        if (maxTicks > 0 && ticks >= maxTicks) {
+            finish();
+        } else if (gameState.getReplayInput() != null && gameState.getReplayInput().isFinished()) {
+            finish();
+        }
+    }
+    
+    public void finish() {
+        running = false;
+        float seconds = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
+        Gdx.app.log(HeadlessSimulation.class.getSimpleName(), ticks + " ticks, " + games + " games in " + seconds + "s (" + (int) (ticks / seconds) + " ticks/s)");
+        
+        GameState gameState = (GameState) core.getStateManager().getState("game");
+        BotPlayer bot = core.getBot();
+        if (bot != null && replayPath == null) {
+            Gdx.app.log(HeadlessSimulation.class.getSimpleName(), "Bot (" + bot.getSkill() + ") planned " + bot.getJumps() + " jumps, retargeted " + bot.getRetargets() + " times");
+        }
+        ReplayPlayerInput replay = gameState.getReplayInput();
+        if (replay != null) {
+            if (replay.getDesyncTick() == -1) {
+                Gdx.app.log(HeadlessSimulation.class.getSimpleName(), "Replay matched every checkpoint over " + replay.getRecording().getTickCount() + " ticks");
+            } else {
+                Gdx.app.error(HeadlessSimulation.class.getSimpleName(), "Replay desynchronized at tick " + replay.getDesyncTick());
+            }
+        }
+        Gdx.app.exit();
+    }
+
+    @Override
+    public void dispose() {
+        core.dispose();
+    }
+
+    public Core getCore() {
+        return core;
+    }
+
+    public ProgrammaticPlayerInput getInput() {
+        return input;
+    }
+
+    public String getReplayPath() {
+        return replayPath;
+    }
+
+    /**
+     * Plays back the recording at this local path instead of running games
+     * with the controller. Must be set before {@link #create()}.
+     */
+    public void setReplayPath(String replayPath) {
+        this.replayPath = replayPath;
+    }
+
+    public Controller getController() {
+        return controller;
+    }
+
+    public void setController(Controller controller) {
+        this.controller = controller;
+    }
+
+    public String getCharacter() {
+        return character;
+    }
+
+    public void setCharacter(String character) {
+        this.character = character;
+    }
+
+    public int getTicksPerFrame() {
+        return ticksPerFrame;
+    }
+
+    public void setTicksPerFrame(int ticksPerFrame) {
+        this.ticksPerFrame = ticksPerFrame;
+    }
+
+    public long getMaxTicks() {
+        return maxTicks;
+    }
+
+    public void setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}